@@ -0,0 +1,10 @@
+#!/bin/sh
+# Builds the benchmarks and runs them, storing the JMH results as
+# results/<date>-<commit>.json so later runs can be compared against them.
+# Arguments go to JMH, e.g. "./run.sh EngineBenchmark" or "./run.sh -p stations=64".
+set -e
+cd "$(dirname "$0")"
+mvn -B -q package
+name="$(date +%Y-%m-%d)-$(git rev-parse --short HEAD)"
+java -jar target/benchmarks.jar -rf json -rff "results/$name.json" "$@"
+echo "Results stored in bench/results/$name.json"
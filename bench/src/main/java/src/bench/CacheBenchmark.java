@@ -0,0 +1,64 @@
+package src.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.Cache;
+import src.ReplacementPolicy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Lookup throughput of one cache level: a read lookup, plus a fill on a miss, over a
+// fixed random address stream four times the size of the cache
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheBenchmark {
+    private static final int ADDRESSES = 1 << 16;
+
+    @Param({"1024", "16384"})
+    public int size;
+
+    @Param({"1", "4", "16"})
+    public int associativity;
+
+    @Param({"LRU", "PLRU"})
+    public ReplacementPolicy policy;
+
+    private Cache cache;
+    private int[] addresses;
+    private int next;
+
+    @Setup
+    public void build() {
+        cache = new Cache(size, 16, associativity, policy, true, true);
+        Random random = new Random(42);
+        addresses = new int[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            addresses[i] = random.nextInt(4 * size);
+        }
+    }
+
+    @Benchmark
+    public boolean access() {
+        int address = addresses[next];
+        next = (next + 1) & (ADDRESSES - 1);
+        boolean hit = cache.hasBlock(address);
+        if (!hit) {
+            cache.fill(address);
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,67 @@
+package src.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import src.MachineConfig;
+import src.TomasuloEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of CDB broadcasts as the machine grows. Every add station fills up waiting on
+// one slow load, so each load broadcast wakes all of them; the memory latency is long
+// enough for the whole window to issue first.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CdbBenchmark {
+    private static final int ROUNDS = 8;
+
+    @Param({"4", "16", "64", "256"})
+    public int stations;
+
+    private TomasuloEngine engine;
+    private List<String> program;
+
+    @Setup(Level.Trial)
+    public void build() {
+        engine = new TomasuloEngine(MachineConfig.builder()
+                .addSubStations(stations)
+                .robSize(stations + 2)
+                .memoryLatency(stations + 20)
+                .build());
+        program = Kernels.fanOut(stations, ROUNDS);
+    }
+
+    @Setup(Level.Invocation)
+    public void load() {
+        engine.reset();
+        engine.loadProgram(program);
+    }
+
+    @Benchmark
+    public int run(Cycles counter) {
+        int cycles = engine.runToCompletion();
+        counter.cycles += cycles;
+        return cycles;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        engine.close();
+    }
+}
@@ -0,0 +1,19 @@
+package src.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Simulated cycles, reported by JMH next to the primary score as cycles per second
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class Cycles {
+    public long cycles;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        cycles = 0;
+    }
+}
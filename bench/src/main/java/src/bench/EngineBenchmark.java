@@ -0,0 +1,61 @@
+package src.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import src.TomasuloEngine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Whole-program simulation speed on the default machine. The score is runs per second;
+// the "cycles" counter is simulated cycles per second. Loading the program happens
+// outside the measured region.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+    @Param({"divChain", "mulChain", "stream"})
+    public String kernel;
+
+    private TomasuloEngine engine;
+    private List<String> program;
+
+    @Setup(Level.Trial)
+    public void build() {
+        engine = new TomasuloEngine();
+        program = Kernels.get(kernel);
+    }
+
+    @Setup(Level.Invocation)
+    public void load() {
+        engine.reset();
+        Kernels.prepare(engine, kernel);
+        engine.loadProgram(program);
+    }
+
+    @Benchmark
+    public int run(Cycles counter) {
+        int cycles = engine.runToCompletion();
+        counter.cycles += cycles;
+        return cycles;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        engine.close();
+    }
+}
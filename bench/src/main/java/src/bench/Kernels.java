@@ -0,0 +1,79 @@
+package src.bench;
+
+import src.TomasuloEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Programs the benchmarks run. Each is unrolled far enough that a run lasts thousands
+// of cycles, so per-run setup does not dominate.
+final class Kernels {
+    private static final int COPIES = 256;
+
+    private Kernels() {}
+
+    static List<String> get(String name) {
+        switch (name) {
+            case "divChain":
+                return divChain();
+            case "mulChain":
+                return mulChain();
+            case "stream":
+                return stream();
+            default:
+                throw new IllegalArgumentException("Unknown kernel: " + name);
+        }
+    }
+
+    // Register values the kernel expects after reset
+    static void prepare(TomasuloEngine engine, String name) {
+        if (name.equals("divChain")) {
+            engine.setRegisterValue("F4", 2.0);  // test.txt divides by F4
+        }
+    }
+
+    // test.txt: a load feeding a divide feeding a store, plus an independent add
+    private static List<String> divChain() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            lines.add("L.D F0, 10");
+            lines.add("DIV.D F7, F0, F4");
+            lines.add("S.D F7, 100");
+            lines.add("ADD.D F1, F2, F3");
+        }
+        return lines;
+    }
+
+    // Every multiply waits for the one before it
+    private static List<String> mulChain() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4 * COPIES; i++) {
+            lines.add("MUL.D F2, F2, F4");
+        }
+        return lines;
+    }
+
+    // Loads, scales and stores consecutive addresses, as an unrolled copy loop
+    private static List<String> stream() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < COPIES; i++) {
+            lines.add("L.D F2, " + i);
+            lines.add("ADD.D F4, F2, F6");
+            lines.add("S.D F4, " + (4096 + i));
+        }
+        return lines;
+    }
+
+    // One load that every following add waits on, repeated: each load broadcast wakes
+    // as many stations as the machine has
+    static List<String> fanOut(int consumers, int rounds) {
+        List<String> lines = new ArrayList<>();
+        for (int r = 0; r < rounds; r++) {
+            lines.add("L.D F1, " + (1024 * r));
+            for (int i = 0; i < consumers; i++) {
+                lines.add("ADD.D F" + (2 + i % 30) + ", F1, F1");
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,152 @@
+package src;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Headless front end: runs each program file to completion and prints its cycle count
+public class BatchSimulator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchSimulator [--trace] [--no-skip] [--machine <file>] [--cache <size> <block>] [--memory <image>] [--stream] [--checkpoint <cycle> <file>] [--restore] [--timing <file.csv|file.json>] [--fast-forward <n>] [--sample <period> <warmup> <window>] <program> [<program> ...]");
+            System.exit(1);
+        }
+
+        MachineConfig config = MachineConfig.defaults();
+        boolean trace = false;
+        boolean stream = false;
+        boolean restore = false;
+        boolean skip = true;
+        int checkpointCycle = 0;
+        Path checkpointFile = null;
+        Path timingFile = null;
+        long fastForward = 0;
+        SamplingRunner sampler = null;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            switch (args[first]) {
+                case "--trace":
+                    trace = true;
+                    first++;
+                    break;
+                case "--no-skip":
+                    skip = false;
+                    first++;
+                    break;
+                case "--stream":
+                    stream = true;
+                    first++;
+                    break;
+                case "--checkpoint":
+                    checkpointCycle = Integer.parseInt(args[first + 1]);
+                    checkpointFile = Paths.get(args[first + 2]);
+                    first += 3;
+                    break;
+                case "--timing":
+                    timingFile = Paths.get(args[first + 1]);
+                    first += 2;
+                    break;
+                case "--fast-forward":
+                    fastForward = Long.parseLong(args[first + 1]);
+                    first += 2;
+                    break;
+                case "--sample":
+                    sampler = new SamplingRunner(Long.parseLong(args[first + 1]),
+                            Integer.parseInt(args[first + 2]), Integer.parseInt(args[first + 3]));
+                    first += 4;
+                    break;
+                case "--restore":
+                    restore = true;
+                    first++;
+                    break;
+                case "--machine":
+                    config = MachineConfig.load(Paths.get(args[first + 1]));
+                    first += 2;
+                    break;
+                case "--cache":
+                    config = config.toBuilder()
+                            .cacheSize(Integer.parseInt(args[first + 1]))
+                            .blockSize(Integer.parseInt(args[first + 2]))
+                            .build();
+                    first += 3;
+                    break;
+                case "--memory":
+                    config = config.toBuilder().memoryImage(args[first + 1]).build();
+                    first += 2;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[first]);
+                    System.exit(1);
+            }
+        }
+
+        TomasuloEngine engine = new TomasuloEngine(config);
+        if (trace) {
+            engine.setListener(new ConsoleTraceListener());
+        }
+        engine.setTimingRecorded(timingFile != null);
+        engine.setCycleSkipping(skip);
+        for (int i = first; i < args.length; i++) {
+            Path file = Paths.get(args[i]);
+            engine.reset();
+            // Binary traces are always streamed; --stream reads text files as traces too
+            if (restore) {
+                engine.restoreCheckpoint(file);
+            } else if (stream || BinaryTrace.isBinary(file)) {
+                engine.loadTrace(file);
+            } else {
+                List<String> lines = Files.readAllLines(file);
+                engine.loadProgram(lines);
+            }
+            if (checkpointFile != null) {
+                while (!engine.isComplete() && engine.getCurrentCycle() < checkpointCycle) {
+                    engine.step();
+                }
+                engine.saveCheckpoint(checkpointFile);
+            }
+            // The first instructions run functionally, with the caches and predictor kept warm
+            if (fastForward > 0) {
+                engine.fastForward(fastForward, true);
+            }
+            SamplingRunner.Result sampled = sampler != null ? sampler.run(engine) : null;
+            int cycles = engine.runToCompletion();
+            if (sampled != null && !sampled.isExact()) {
+                System.out.println(args[i] + ": about " + sampled.getEstimatedCycles() + " cycles");
+            } else {
+                System.out.println(args[i] + ": " + cycles + " cycles");
+            }
+            if (sampled != null) {
+                System.out.print(sampled.report());
+            }
+            if (engine.isHalted()) {
+                System.out.println("Halted: " + engine.getException());
+            }
+            // Fast-forwarded instructions take no cycles and are not counted, so the stats and
+            // cache counters cover only the detailed part
+            if (fastForward > 0 || sampled != null && !sampled.isExact()) {
+                System.out.println("Detailed simulation only:");
+            }
+            System.out.print(engine.getStats().report());
+            System.out.print(engine.getStats().bottleneckReport());
+            System.out.print(engine.getMemoryHierarchy().report());
+            if (timingFile != null) {
+                TimingTable timing = engine.getTimingTable();
+                System.out.print(timing.report(cycles));
+                // With several programs each gets its own file, named after the program
+                Path out = args.length - first == 1 ? timingFile
+                        : timingFile.resolveSibling(file.getFileName() + "." + timingFile.getFileName());
+                try (Writer writer = Files.newBufferedWriter(out)) {
+                    if (out.toString().endsWith(".json")) {
+                        timing.writeJson(writer);
+                    } else {
+                        timing.writeCsv(writer);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Classic 2-bit saturating counters indexed by the low bits of the pc. Counters start
+// weakly not-taken; values 2 and 3 predict taken.
+public class BimodalPredictor implements BranchPredictor {
+    private final byte[] counters;
+    private final int mask;
+
+    public BimodalPredictor(int tableBits) {
+        counters = new byte[1 << tableBits];
+        mask = counters.length - 1;
+        Arrays.fill(counters, (byte) 1);
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        return counters[pc & mask] >= 2;
+    }
+
+    @Override
+    public void update(int pc, int history, boolean taken) {
+        train(counters, pc & mask, taken);
+    }
+
+    @Override
+    public void save(DataOutput out) throws IOException {
+        out.write(counters);
+    }
+
+    @Override
+    public void restore(DataInput in) throws IOException {
+        in.readFully(counters);
+    }
+
+    static void train(byte[] counters, int index, boolean taken) {
+        byte c = counters[index];
+        if (taken && c < 3) {
+            counters[index] = (byte) (c + 1);
+        } else if (!taken && c > 0) {
+            counters[index] = (byte) (c - 1);
+        }
+    }
+}
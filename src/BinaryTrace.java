@@ -0,0 +1,151 @@
+package src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Compact binary trace: the magic "TOMT", a version, the distinct instructions as
+// text (see TraceSource.InstructionTable), the record count, then one int per executed
+// instruction indexing that table, followed by the record's address or immediate when
+// the entry has one. Converting a text trace once lets later runs skip text parsing
+// entirely; only the table, which is as small as the static code, is decoded when the
+// trace is opened.
+public class BinaryTrace {
+    private static final int MAGIC = 0x544F4D54;  // "TOMT"
+    private static final int VERSION = 2;
+    private static final int BUFFER = 1 << 16;
+
+    public static boolean isBinary(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Two passes over the text: one to build the instruction table, one to write records.
+    // The machine is not known yet, so only registers and addresses no machine has are
+    // rejected here; the rest are checked when the trace is opened.
+    public static void convert(Path text, Path binary) throws IOException {
+        TraceSource.InstructionTable table = new TraceSource.InstructionTable(Integer.MAX_VALUE, Long.MAX_VALUE);
+        long records = 0;
+        try (BufferedReader in = Files.newBufferedReader(text)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String instruction = TraceSource.instructionText(line);
+                if (instruction.isEmpty() || instruction.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    table.decode(instruction);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(text + ":" + lineNumber + ": " + e.getMessage());
+                    continue;
+                }
+                records++;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binary), BUFFER));
+             BufferedReader in = Files.newBufferedReader(text)) {
+            List<String> instructions = table.getTexts();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(instructions.size());
+            for (String instruction : instructions) {
+                out.writeUTF(instruction);
+            }
+            out.writeLong(records);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String instruction = TraceSource.instructionText(line);
+                if (instruction.isEmpty() || instruction.startsWith("#")) {
+                    continue;
+                }
+                InstructionQueue record;
+                try {
+                    record = table.decode(instruction);
+                } catch (IllegalArgumentException e) {
+                    continue;  // Reported by the first pass
+                }
+                out.writeInt(record.pc);
+                if (TraceSource.hasImmediate(record.opcode)) {
+                    out.writeInt(record.immediate);
+                }
+            }
+        }
+    }
+
+    static TraceSource.RecordReader reader(Path file, int registerCount, long memorySize) throws IOException {
+        InputStream stream = Files.newInputStream(file);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a version " + VERSION + " binary trace");
+            }
+            TraceSource.InstructionTable decoder = new TraceSource.InstructionTable(registerCount, memorySize);
+            InstructionQueue[] table = new InstructionQueue[in.readInt()];
+            for (int i = 0; i < table.length; i++) {
+                String text = in.readUTF();
+                try {
+                    table[i] = decoder.add(text);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ": " + e.getMessage());
+                }
+            }
+            long records = in.readLong();
+            return new TraceSource.RecordReader() {
+                private long read;
+
+                @Override
+                public InstructionQueue next() throws IOException {
+                    if (read == records) {
+                        return null;
+                    }
+                    read++;
+                    int index = in.readInt();
+                    if (index < 0 || index >= table.length) {
+                        throw new IOException(file + ": bad instruction index " + index);
+                    }
+                    InstructionQueue entry = table[index];
+                    if (!TraceSource.hasImmediate(entry.opcode)) {
+                        return entry;
+                    }
+                    try {
+                        return TraceSource.withImmediate(entry, in.readInt(), memorySize);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(file + ": record " + read + ": " + e.getMessage());
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Converts a text trace: BinaryTrace <text trace> <binary trace>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryTrace <text trace> <binary trace>");
+            System.exit(1);
+        }
+        convert(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
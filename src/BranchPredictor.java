@@ -0,0 +1,48 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Direction predictor consulted when a branch is fetched. History-based predictors
+// update their history speculatively at predict(); the engine records getHistory()
+// with every prediction so it can train at commit and repair after a misprediction.
+public interface BranchPredictor {
+
+    // History to record with the prediction about to be made; 0 for predictors without one
+    default int getHistory() {
+        return 0;
+    }
+
+    boolean predict(int pc, int target);
+
+    // Trains on a committed branch; history is what getHistory() returned before its predict()
+    default void update(int pc, int history, boolean taken) {}
+
+    // Rewinds speculative history to just after a mispredicted branch
+    default void recover(int history, boolean taken) {}
+
+    // Puts speculative history back to what getHistory() returned before a prediction
+    // whose branch was discarded without resolving
+    default void rewind(int history) {}
+
+    // Checkpoint form of the tables and history; stateless predictors write nothing
+    default void save(DataOutput out) throws IOException {}
+
+    default void restore(DataInput in) throws IOException {}
+
+    static BranchPredictor create(MachineConfig config) {
+        switch (config.getPredictorType()) {
+            case TAKEN:
+                return (pc, target) -> true;
+            case BTFN:
+                return (pc, target) -> target <= pc;
+            case BIMODAL:
+                return new BimodalPredictor(config.getPredictorTableBits());
+            case GSHARE:
+                return new GsharePredictor(config.getPredictorTableBits(), config.getPredictorHistoryBits());
+            default:
+                return (pc, target) -> false;
+        }
+    }
+}
@@ -1,89 +1,278 @@
 package src;
 
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
 
+// One set-associative level of the cache hierarchy. A block maps to set
+// (blockNumber % sets) and may sit in any of that set's ways; lines are numbered
+// set * ways + way and all line state lives in flat arrays indexed by that number.
+// Only tags and dirty bits are kept: Memory always holds the current data, so the
+// cache decides timing and traffic, not values.
 public class Cache {
     private int cacheSize;  // in bytes
     private int blockSize;  // in bytes
-    private HashMap<Integer, CacheBlock> blocks;
+    private final int ways;
+    private final int sets;
+    private final ReplacementPolicy policy;
+    private final boolean writeBack;
+    private final boolean writeAllocate;
+    private final int[] tags;       // Block number held by each line
+    private final boolean[] valid;
+    private final boolean[] dirty;
+    private final long[] stamps;    // Last access (LRU) or fill (FIFO) time of each line
+    private final int[] plruBits;   // Tree bits of each set (PLRU)
+    private Random random = new Random(1);
+    private long randomDraws;       // Victims picked at random so far, to replay on restore
+    private long clock;
     private int hits;
     private int misses;
+    private int writebacks;  // Dirty lines written to the level below on eviction
+    private boolean counting = true;  // Off while warming, see MemoryHierarchy.warm
 
+    // Fully associative LRU write-back cache
     public Cache(int cacheSize, int blockSize) {
+        this(cacheSize, blockSize, cacheSize / blockSize, ReplacementPolicy.LRU, true, true);
+    }
+
+    public Cache(CacheConfig config) {
+        this(config.getSize(), config.getBlockSize(), config.getAssociativity(), config.getPolicy(),
+                config.isWriteBack(), config.isWriteAllocate());
+    }
+
+    public Cache(int cacheSize, int blockSize, int ways, ReplacementPolicy policy,
+                 boolean writeBack, boolean writeAllocate) {
+        int lines = cacheSize / blockSize;
+        if (blockSize < 1 || lines < 1 || ways < 1 || lines % ways != 0) {
+            throw new IllegalArgumentException("Invalid cache parameters: size=" + cacheSize
+                    + ", block=" + blockSize + ", ways=" + ways);
+        }
+        if (policy == ReplacementPolicy.PLRU && (Integer.bitCount(ways) != 1 || ways > 32)) {
+            throw new IllegalArgumentException("PLRU needs a power-of-two associativity of at most 32: " + ways);
+        }
         this.cacheSize = cacheSize;
         this.blockSize = blockSize;
-        this.blocks = new HashMap<>(cacheSize / blockSize);
+        this.ways = ways;
+        this.sets = lines / ways;
+        this.policy = policy;
+        this.writeBack = writeBack;
+        this.writeAllocate = writeAllocate;
+        this.tags = new int[lines];
+        this.valid = new boolean[lines];
+        this.dirty = new boolean[lines];
+        this.stamps = new long[lines];
+        this.plruBits = new int[sets];
         this.hits = 0;
         this.misses = 0;
     }
 
+    // A read lookup; counts a hit or a miss
     public boolean hasBlock(int address) {
-        int blockNumber = address / blockSize;
-        if (blocks.containsKey(blockNumber)) {
-            hits++;
+        int line = find(address / blockSize);
+        if (line >= 0) {
+            count(true);
+            touch(line);
             return true;
         }
-        misses++;
+        count(false);
         return false;
     }
 
-    public double read(int address) {
-        int blockNumber = address / blockSize;
-        int offset = address % blockSize;
-        CacheBlock block = blocks.get(blockNumber);
-        if (block == null) {
-            throw new IllegalStateException("Attempting to read from non-existent cache block at address " + address);
+    // Tag check without touching statistics or replacement state
+    public boolean contains(int address) {
+        return find(address / blockSize) >= 0;
+    }
+
+    // An access to a block still in flight from below: a miss, though it costs no new fetch
+    public void recordSecondaryMiss() {
+        count(false);
+    }
+
+    // A write lookup; counts a hit or a miss. A write-back cache marks a hit line dirty.
+    public boolean write(int address) {
+        int line = find(address / blockSize);
+        if (line < 0) {
+            count(false);
+            return false;
         }
-        return block.getData(offset);
+        count(true);
+        touch(line);
+        dirty[line] |= writeBack;
+        return true;
     }
 
-    public void write(int address, double value) {
-        int blockNumber = address / blockSize;
-        int offset = address % blockSize;
-        CacheBlock block = blocks.get(blockNumber);
-        if (block != null) {
-            block.setData(offset, value);
+    // A dirty block evicted from the level above. Returns false if this level does not
+    // hold it (or is write-through), in which case it must go further down.
+    public boolean absorbWriteback(int address) {
+        int line = find(address / blockSize);
+        if (line < 0 || !writeBack) {
+            return false;
         }
+        dirty[line] = true;
+        return true;
     }
 
-    public void loadBlock(int address, Memory memory) {
+    // Installs the block containing the address, clean. Returns the first address of a
+    // dirty block evicted to make room, or -1.
+    public int fill(int address) {
         int blockNumber = address / blockSize;
-        
-        // If cache is full, remove oldest block
-        if (blocks.size() >= cacheSize / blockSize) {
-            blocks.remove(blocks.keySet().iterator().next());
+        int line = find(blockNumber);
+        int evicted = -1;
+        if (line < 0) {
+            line = victim(blockNumber % sets);
+            if (valid[line] && dirty[line]) {
+                evicted = tags[line] * blockSize;
+                if (counting) {
+                    writebacks++;
+                }
+            }
+        }
+        tags[line] = blockNumber;
+        valid[line] = true;
+        dirty[line] = false;
+        stamps[line] = ++clock;
+        if (policy == ReplacementPolicy.PLRU) {
+            plruTouch(line);
         }
+        return evicted;
+    }
 
-        // Create new block
-        CacheBlock newBlock = new CacheBlock(blockSize);
-        
-        // Load data from memory
-        int startAddress = blockNumber * blockSize;
-        for (int i = 0; i < blockSize; i++) {
-            newBlock.setData(i, memory.read(startAddress + i));
+    public void markDirty(int address) {
+        int line = find(address / blockSize);
+        if (line >= 0 && writeBack) {
+            dirty[line] = true;
         }
+    }
 
-        blocks.put(blockNumber, newBlock);
+    // Accesses still move blocks and replacement state while counting is off
+    public void setCounting(boolean counting) {
+        this.counting = counting;
     }
 
-    public int getHits() { return hits; }
-    public int getMisses() { return misses; }
-    public int getCacheSize() { return cacheSize; }
-    public int getBlockSize() { return blockSize; }
-}
+    private void count(boolean hit) {
+        if (!counting) {
+            return;
+        }
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
 
-class CacheBlock {
-    private double[] data;
+    // Line holding the block, or -1; only the block's own set is searched
+    private int find(int blockNumber) {
+        int first = (blockNumber % sets) * ways;
+        for (int line = first; line < first + ways; line++) {
+            if (valid[line] && tags[line] == blockNumber) {
+                return line;
+            }
+        }
+        return -1;
+    }
 
-    public CacheBlock(int blockSize) {
-        this.data = new double[blockSize];
+    private void touch(int line) {
+        if (policy == ReplacementPolicy.LRU) {
+            stamps[line] = ++clock;
+        } else if (policy == ReplacementPolicy.PLRU) {
+            plruTouch(line);
+        }
     }
 
-    public double getData(int offset) {
-        return data[offset];
+    // An empty way if there is one, otherwise the line the policy gives up
+    private int victim(int set) {
+        int first = set * ways;
+        for (int line = first; line < first + ways; line++) {
+            if (!valid[line]) {
+                return line;
+            }
+        }
+        switch (policy) {
+            case PLRU:
+                int node = 1;
+                while (node < ways) {
+                    node = 2 * node + ((plruBits[set] >>> node) & 1);
+                }
+                return first + node - ways;
+            case RANDOM:
+                randomDraws++;
+                return first + random.nextInt(ways);
+            default:
+                // LRU and FIFO both evict the smallest stamp; they differ in when it is set
+                int oldest = first;
+                for (int line = first + 1; line < first + ways; line++) {
+                    if (stamps[line] < stamps[oldest]) {
+                        oldest = line;
+                    }
+                }
+                return oldest;
+        }
     }
 
-    public void setData(int offset, double value) {
-        data[offset] = value;
+    // Points every tree node on the way's path away from it
+    private void plruTouch(int line) {
+        int set = line / ways;
+        int node = line % ways + ways;
+        while (node > 1) {
+            int parent = node >>> 1;
+            if ((node & 1) == 0) {
+                plruBits[set] |= 1 << parent;
+            } else {
+                plruBits[set] &= ~(1 << parent);
+            }
+            node = parent;
+        }
     }
+
+    // Checkpoint form of the line and replacement state; the geometry must already match
+    public void save(DataOutput out) throws IOException {
+        for (int line = 0; line < tags.length; line++) {
+            out.writeInt(tags[line]);
+            out.writeBoolean(valid[line]);
+            out.writeBoolean(dirty[line]);
+            out.writeLong(stamps[line]);
+        }
+        for (int bits : plruBits) {
+            out.writeInt(bits);
+        }
+        out.writeLong(randomDraws);
+        out.writeLong(clock);
+        out.writeInt(hits);
+        out.writeInt(misses);
+        out.writeInt(writebacks);
+    }
+
+    public void restore(DataInput in) throws IOException {
+        for (int line = 0; line < tags.length; line++) {
+            tags[line] = in.readInt();
+            valid[line] = in.readBoolean();
+            dirty[line] = in.readBoolean();
+            stamps[line] = in.readLong();
+        }
+        for (int set = 0; set < sets; set++) {
+            plruBits[set] = in.readInt();
+        }
+        // Random has no accessible state, so the same sequence is drawn again
+        randomDraws = in.readLong();
+        random = new Random(1);
+        for (long i = 0; i < randomDraws; i++) {
+            random.nextInt(ways);
+        }
+        clock = in.readLong();
+        hits = in.readInt();
+        misses = in.readInt();
+        writebacks = in.readInt();
+    }
+
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public int getWritebacks() { return writebacks; }
+    public boolean isWriteBack() { return writeBack; }
+    public boolean isWriteAllocate() { return writeAllocate; }
+    public int getCacheSize() { return cacheSize; }
+    public int getBlockSize() { return blockSize; }
+    public int getAssociativity() { return ways; }
+    public int getSets() { return sets; }
+    public ReplacementPolicy getPolicy() { return policy; }
 }
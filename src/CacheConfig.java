@@ -0,0 +1,38 @@
+package src;
+
+// Immutable description of one level of the cache hierarchy
+public class CacheConfig {
+    private final int size;            // in bytes
+    private final int blockSize;       // in bytes
+    private final int associativity;
+    private final ReplacementPolicy policy;
+    private final int hitLatency;      // Cycles to look up this level
+    private final boolean writeBack;   // Otherwise write-through
+    private final boolean writeAllocate;
+
+    public CacheConfig(int size, int blockSize, int associativity, ReplacementPolicy policy,
+                       int hitLatency, boolean writeBack, boolean writeAllocate) {
+        this.size = size;
+        this.blockSize = blockSize;
+        this.associativity = associativity;
+        this.policy = policy;
+        this.hitLatency = hitLatency;
+        this.writeBack = writeBack;
+        this.writeAllocate = writeAllocate;
+    }
+
+    public int getSize() { return size; }
+    public int getBlockSize() { return blockSize; }
+    public int getAssociativity() { return associativity; }
+    public ReplacementPolicy getPolicy() { return policy; }
+    public int getHitLatency() { return hitLatency; }
+    public boolean isWriteBack() { return writeBack; }
+    public boolean isWriteAllocate() { return writeAllocate; }
+
+    @Override
+    public String toString() {
+        return size + "/" + blockSize + "/" + associativity + "-way " + policy + ", hit=" + hitLatency
+                + (writeBack ? ", write-back" : ", write-through")
+                + (writeAllocate ? ", write-allocate" : ", no-write-allocate");
+    }
+}
@@ -0,0 +1,72 @@
+package src;
+
+import java.io.PrintStream;
+
+// Prints every pipeline event, one line each, in the same style as the old console log
+public class ConsoleTraceListener implements SimulationListener {
+    private final PrintStream out;
+
+    public ConsoleTraceListener() {
+        this(System.out);
+    }
+
+    public ConsoleTraceListener(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onIssue(int cycle, InstructionQueue instruction, String unit) {
+        out.println("[" + cycle + "] Issued " + instruction.instruction + " " + instruction.d + " to " + unit);
+    }
+
+    @Override
+    public void onIssueStall(int cycle, InstructionQueue instruction, String cause) {
+        out.println("[" + cycle + "] Could not issue: " + instruction.instruction + " (" + cause + ")");
+    }
+
+    @Override
+    public void onExecStart(int cycle, String unit) {
+        out.println("[" + cycle + "] Starting execution of " + unit);
+    }
+
+    @Override
+    public void onExecDone(int cycle, String unit, double result) {
+        out.println("[" + cycle + "] " + unit + " completed with result " + result);
+    }
+
+    @Override
+    public void onBroadcast(int cycle, String unit, double value) {
+        out.println("[" + cycle + "] Writing result from " + unit + ": " + value);
+    }
+
+    @Override
+    public void onCacheHit(int cycle, int address) {
+        out.println("[" + cycle + "] Cache hit at address " + address);
+    }
+
+    @Override
+    public void onCacheMiss(int cycle, int address) {
+        out.println("[" + cycle + "] Cache miss at address " + address);
+    }
+
+    @Override
+    public void onStoreForward(int cycle, String load, String store, int address) {
+        out.println("[" + cycle + "] " + load + " forwarded from " + store + " at address " + address);
+    }
+
+    @Override
+    public void onCommit(int cycle, InstructionQueue instruction) {
+        out.println("[" + cycle + "] Committed " + instruction.instruction + " " + instruction.d);
+    }
+
+    @Override
+    public void onException(int cycle, InstructionQueue instruction, String message) {
+        out.println("[" + cycle + "] Exception: " + message);
+    }
+
+    @Override
+    public void onMispredict(int cycle, InstructionQueue branch, int squashed) {
+        out.println("[" + cycle + "] Mispredicted " + branch.instruction + " at " + branch.pc
+                + ", squashed " + squashed + " instructions");
+    }
+}
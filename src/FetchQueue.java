@@ -0,0 +1,64 @@
+package src;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// Fixed-capacity circular queue between fetch and issue, oldest first. Fetch appends at
+// the tail and issue takes from the head, both in constant time however long the run.
+// As a List it is the read-only view front ends display.
+public class FetchQueue extends AbstractList<InstructionQueue> implements RandomAccess {
+    private final InstructionQueue[] entries;
+    private int head;   // Slot of the oldest entry
+    private int count;
+
+    public FetchQueue(int capacity) {
+        entries = new InstructionQueue[capacity];
+    }
+
+    public boolean isFull() { return count == entries.length; }
+    public int getCapacity() { return entries.length; }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    // The i-th oldest entry
+    @Override
+    public InstructionQueue get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Fetch queue entry " + index + " of " + count);
+        }
+        return entries[(head + index) % entries.length];
+    }
+
+    @Override
+    public boolean add(InstructionQueue instruction) {
+        if (isFull()) {
+            throw new IllegalStateException("Fetch queue is full");
+        }
+        entries[(head + count) % entries.length] = instruction;
+        count++;
+        return true;
+    }
+
+    // Takes the oldest entry, which has just issued
+    public InstructionQueue removeFirst() {
+        if (count == 0) {
+            throw new IllegalStateException("Fetch queue is empty");
+        }
+        InstructionQueue instruction = entries[head];
+        entries[head] = null;
+        head = (head + 1) % entries.length;
+        count--;
+        return instruction;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, null);
+        head = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,77 @@
+package src;
+
+import src.Instructions.AddSubInstruction;
+import src.Instructions.BranchInstruction;
+import src.Instructions.IntegerInstruction;
+import src.Instructions.MulDivInstruction;
+import src.Instructions.Register;
+
+// Architectural effect of one instruction, computed by the functional models in
+// src.Instructions with no timing at all. Loads and stores go straight to Memory at
+// their decoded address, since LoadStoreInstruction binds the register and address
+// when constructed and would cost an object per access. Results are the ones the
+// stations produce, so a detailed run can pick up exactly where a fast-forward stopped:
+// single-precision operations are computed in double precision as the stations do, and
+// a divide by zero gives 0 unless it traps.
+public class FunctionalExecutor {
+    // The models take their registers per call, so one of each serves every instruction
+    private final AddSubInstruction add = new AddSubInstruction(true, null, null, null);
+    private final AddSubInstruction subtract = new AddSubInstruction(false, null, null, null);
+    private final MulDivInstruction multiply = new MulDivInstruction(true, null, null, null);
+    private final MulDivInstruction divide = new MulDivInstruction(false, null, null, null);
+    private final IntegerInstruction addImmediate = new IntegerInstruction(true);
+    private final IntegerInstruction subtractImmediate = new IntegerInstruction(false);
+    private final BranchInstruction equal = new BranchInstruction(true);
+    private final BranchInstruction notEqual = new BranchInstruction(false);
+
+    // True if the instruction is a divide by zero, which faults when the machine traps it
+    public boolean dividesByZero(InstructionQueue instruction, Register[] registers) {
+        return (instruction.opcode == Opcode.DIV_D || instruction.opcode == Opcode.DIV_S)
+                && registers[instruction.src2].getValue() == 0;
+    }
+
+    // Updates the destination register or memory; returns whether a branch is taken
+    // (false for everything else)
+    public boolean execute(InstructionQueue instruction, Register[] registers, Memory memory) {
+        switch (instruction.opcode) {
+            case L_D:
+                registers[instruction.dest].setValue(memory.read(instruction.immediate));
+                return false;
+            case S_D:
+                memory.write(instruction.immediate, registers[instruction.src1].getValue());
+                return false;
+            case ADD_D:
+            case ADD_S:
+                add.AddSub(registers[instruction.src1], registers[instruction.src2], registers[instruction.dest]);
+                return false;
+            case SUB_D:
+            case SUB_S:
+                subtract.AddSub(registers[instruction.src1], registers[instruction.src2], registers[instruction.dest]);
+                return false;
+            case MUL_D:
+            case MUL_S:
+                multiply.MulDiv(registers[instruction.src1], registers[instruction.src2], registers[instruction.dest]);
+                return false;
+            case DIV_D:
+            case DIV_S:
+                if (dividesByZero(instruction, registers)) {
+                    registers[instruction.dest].setValue(0);
+                } else {
+                    divide.MulDiv(registers[instruction.src1], registers[instruction.src2], registers[instruction.dest]);
+                }
+                return false;
+            case DADDI:
+                addImmediate.IntegerOp(registers[instruction.src1], instruction.immediate, registers[instruction.dest]);
+                return false;
+            case DSUBI:
+                subtractImmediate.IntegerOp(registers[instruction.src1], instruction.immediate, registers[instruction.dest]);
+                return false;
+            case BEQ:
+                return equal.Branch(registers[instruction.src1], registers[instruction.src2]);
+            case BNE:
+                return notEqual.Branch(registers[instruction.src1], registers[instruction.src2]);
+            default:
+                throw new IllegalStateException("Unknown operation: " + instruction.opcode);
+        }
+    }
+}
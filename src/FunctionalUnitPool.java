@@ -0,0 +1,84 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// The functional units of one class. A pipelined unit accepts a new operation every
+// `interval` cycles whatever it is already working on; a non-pipelined unit is held
+// from the cycle it accepts an operation until the engine releases it, so the next
+// operation starts the cycle after the previous one finishes.
+public class FunctionalUnitPool {
+    public static final int NO_UNIT = -1;
+    private static final int HELD = Integer.MAX_VALUE;
+
+    private final int[] freeCycles;  // First cycle each unit can accept an operation
+    private final int interval;
+    private final boolean pipelined;
+
+    public FunctionalUnitPool(int count, int interval, boolean pipelined) {
+        this.freeCycles = new int[count];
+        this.interval = interval;
+        this.pipelined = pipelined;
+    }
+
+    // Claims a unit for an operation starting this cycle; NO_UNIT if all are busy
+    public int acquire(int cycle) {
+        for (int unit = 0; unit < freeCycles.length; unit++) {
+            if (freeCycles[unit] <= cycle) {
+                freeCycles[unit] = pipelined ? cycle + interval : HELD;
+                return unit;
+            }
+        }
+        return NO_UNIT;
+    }
+
+    // The operation on a non-pipelined unit finished (or was squashed) in this cycle
+    public void release(int unit, int cycle) {
+        if (!pipelined && unit != NO_UNIT) {
+            freeCycles[unit] = cycle + 1;
+        }
+    }
+
+    public boolean hasFree(int cycle) {
+        for (int free : freeCycles) {
+            if (free <= cycle) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // First cycle after this one at which a unit frees by itself, or Integer.MAX_VALUE
+    // when only a release can free one
+    public int nextFree(int cycle) {
+        int next = Integer.MAX_VALUE;
+        for (int free : freeCycles) {
+            if (free > cycle && free < next) {
+                next = free;
+            }
+        }
+        return next;
+    }
+
+    public int size() {
+        return freeCycles.length;
+    }
+
+    public void save(DataOutput out) throws IOException {
+        for (int free : freeCycles) {
+            out.writeInt(free);
+        }
+    }
+
+    public void restore(DataInput in) throws IOException {
+        for (int unit = 0; unit < freeCycles.length; unit++) {
+            freeCycles[unit] = in.readInt();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(freeCycles, 0);
+    }
+}
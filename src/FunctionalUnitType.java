@@ -0,0 +1,58 @@
+package src;
+
+// Classes of functional unit the stations and buffers compete for. Each class is a pool
+// configured by the fu.<key>.* machine settings (see MachineConfig.load).
+public enum FunctionalUnitType {
+    FP_ADD("add", "FP add"),
+    FP_MUL("mul", "FP multiply"),
+    FP_DIV("div", "FP divide"),
+    INTEGER("int", "integer"),    // DADDI, DSUBI and branch comparisons
+    AGU("agu", "address");        // Loads and stores
+
+    private final String key;
+    private final String name;
+
+    FunctionalUnitType(String key, String name) {
+        this.key = key;
+        this.name = name;
+    }
+
+    public static FunctionalUnitType of(Opcode op) {
+        switch (op) {
+            case ADD_D:
+            case SUB_D:
+            case ADD_S:
+            case SUB_S:
+                return FP_ADD;
+            case MUL_D:
+            case MUL_S:
+                return FP_MUL;
+            case DIV_D:
+            case DIV_S:
+                return FP_DIV;
+            case L_D:
+            case S_D:
+                return AGU;
+            default:
+                return INTEGER;
+        }
+    }
+
+    public static FunctionalUnitType fromKey(String key) {
+        for (FunctionalUnitType type : values()) {
+            if (type.key.equals(key)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,61 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 2-bit counters indexed by pc xor the global history of recent branch outcomes. The
+// history is shifted with each prediction as it is made and repaired by recover().
+public class GsharePredictor implements BranchPredictor {
+    private final byte[] counters;
+    private final int mask;
+    private final int historyMask;
+    private int history;
+
+    public GsharePredictor(int tableBits, int historyBits) {
+        counters = new byte[1 << tableBits];
+        mask = counters.length - 1;
+        historyMask = (1 << historyBits) - 1;
+        Arrays.fill(counters, (byte) 1);
+    }
+
+    @Override
+    public int getHistory() {
+        return history;
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        boolean taken = counters[(pc ^ history) & mask] >= 2;
+        history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+        return taken;
+    }
+
+    @Override
+    public void update(int pc, int history, boolean taken) {
+        BimodalPredictor.train(counters, (pc ^ history) & mask, taken);
+    }
+
+    @Override
+    public void recover(int history, boolean taken) {
+        this.history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+    }
+
+    @Override
+    public void rewind(int history) {
+        this.history = history;
+    }
+
+    @Override
+    public void save(DataOutput out) throws IOException {
+        out.write(counters);
+        out.writeInt(history);
+    }
+
+    @Override
+    public void restore(DataInput in) throws IOException {
+        in.readFully(counters);
+        history = in.readInt();
+    }
+}
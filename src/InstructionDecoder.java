@@ -0,0 +1,116 @@
+package src;
+
+// Turns one line of assembly into a decoded InstructionQueue entry. Accepted forms:
+//   L.D Fd, address        S.D Fs, address
+//   ADD.D Fd, Fj, Fk       (also SUB/MUL/DIV, .D and .S)
+//   DADDI Fd, Fj, imm      DSUBI Fd, Fj, imm
+//   BEQ Fj, Fk[, target]   BNE Fj, Fk[, target]
+// A branch target is a label or an absolute instruction number; Program resolves it.
+public class InstructionDecoder {
+
+    public static InstructionQueue decode(String line) {
+        String instruction = line.replaceAll("\\s*[.]\\s*", ".");
+        instruction = instruction.replaceAll("\\s+", " ").trim();
+
+        String[] parts = instruction.split("[,\\s]+");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid instruction format: " + line);
+        }
+
+        // "L . D" style input splits the mnemonic in two
+        if (parts[0].length() == 1) {
+            String[] newParts = new String[parts.length - 1];
+            newParts[0] = parts[0] + "." + parts[1];
+            System.arraycopy(parts, 2, newParts, 1, parts.length - 2);
+            parts = newParts;
+        }
+
+        Opcode op = Opcode.fromMnemonic(parts[0]);
+        if (op == null) {
+            throw new IllegalArgumentException("Unknown operation: " + parts[0]);
+        }
+
+        String first = operand(parts, 1, line);
+        String second = parts.length > 2 ? parts[2] : "";
+        String third = parts.length > 3 ? parts[3] : "";
+        InstructionQueue decoded = new InstructionQueue(op.getMnemonic(), first, second, third, -1, -1, -1, -1);
+        decoded.opcode = op;
+
+        switch (op) {
+            case L_D:
+                decoded.dest = parseRegister(first);
+                decoded.immediate = parseInt(operand(parts, 2, line), "memory address");
+                break;
+            case S_D:
+                decoded.src1 = parseRegister(first);
+                decoded.immediate = parseInt(operand(parts, 2, line), "memory address");
+                break;
+            case DADDI:
+            case DSUBI:
+                decoded.dest = parseRegister(first);
+                decoded.src1 = parseRegister(operand(parts, 2, line));
+                decoded.immediate = parseInt(operand(parts, 3, line), "immediate value");
+                break;
+            case BEQ:
+            case BNE:
+                decoded.src1 = parseRegister(first);
+                decoded.src2 = parseRegister(operand(parts, 2, line));
+                decoded.targetLabel = parts.length > 3 ? parts[3] : null;
+                break;
+            default:
+                decoded.dest = parseRegister(first);
+                decoded.src1 = parseRegister(operand(parts, 2, line));
+                decoded.src2 = parseRegister(operand(parts, 3, line));
+                break;
+        }
+        return decoded;
+    }
+
+    // Rejects an instruction that names a register the machine does not have
+    public static void checkRegisters(InstructionQueue decoded, int registerCount) {
+        checkRegister(decoded.dest, registerCount);
+        checkRegister(decoded.src1, registerCount);
+        checkRegister(decoded.src2, registerCount);
+    }
+
+    // Rejects a load or store whose address is negative or past the end of memory
+    public static void checkAddress(InstructionQueue decoded, long memorySize) {
+        if ((decoded.opcode == Opcode.L_D || decoded.opcode == Opcode.S_D)
+                && (decoded.immediate < 0 || decoded.immediate >= memorySize)) {
+            throw new IllegalArgumentException("Memory address " + decoded.immediate + " is outside the "
+                    + memorySize + "-word memory in: " + decoded.toSource());
+        }
+    }
+
+    public static void checkRegister(int number, int registerCount) {
+        if (number != InstructionQueue.NO_REGISTER && number >= registerCount) {
+            throw new IllegalArgumentException("Register F" + number + " is not implemented");
+        }
+    }
+
+    // Accepts "F4", "f4" or "4"
+    public static int parseRegister(String name) {
+        String digits = name.length() > 0 && (name.charAt(0) == 'F' || name.charAt(0) == 'f')
+                ? name.substring(1) : name;
+        int number = parseInt(digits, "register");
+        if (number < 0) {
+            throw new IllegalArgumentException("Invalid register: " + name);
+        }
+        return number;
+    }
+
+    private static String operand(String[] parts, int index, String line) {
+        if (index >= parts.length) {
+            throw new IllegalArgumentException("Missing operand in: " + line);
+        }
+        return parts[index];
+    }
+
+    private static int parseInt(String text, String what) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + text);
+        }
+    }
+}
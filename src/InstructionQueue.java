@@ -15,7 +15,28 @@ public class InstructionQueue {
     public int loopIterations;  // Number of iterations for the loop
     public int currentIteration; // Tracks the current loop iteration
 
-    public InstructionQueue(String instruction, String dest, String src1, String src2, 
+    // Decoded form, filled in once by InstructionDecoder
+    public Opcode opcode;       // Operation
+    public int dest;            // Destination register number, or NO_REGISTER
+    public int src1;            // First source register number, or NO_REGISTER
+    public int src2;            // Second source register number, or NO_REGISTER
+    public int immediate;       // Memory address for L.D/S.D, immediate for DADDI/DSUBI
+
+    // Control flow, filled in when the program is loaded
+    public int pc;              // Position of the instruction in the program
+    public String targetLabel;  // Branch target as written, or null
+    public int target;          // Branch target pc, resolved by Program
+
+    // Prediction state of one fetched branch; see fetchCopy()
+    public boolean predictedTaken;
+    public int predictorHistory; // Predictor history when the prediction was made
+    public int fetchCycle;
+    public long fetchIndex;      // Where it was fetched from, see InstructionSource
+    public boolean mispredicted;
+
+    public static final int NO_REGISTER = -1;
+
+    public InstructionQueue(String instruction, String dest, String src1, String src2,
                             int issue, int startTime, int endTime, int wbTime) {
         this.instruction = instruction;
         this.d = dest;
@@ -29,5 +50,37 @@ public class InstructionQueue {
         this.isLoopEnd = false;
         this.loopIterations = 0;
         this.currentIteration = 0;
+        this.dest = NO_REGISTER;
+        this.src1 = NO_REGISTER;
+        this.src2 = NO_REGISTER;
+    }
+
+    // The instruction as program text, which decodes back to the same instruction
+    public String toSource() {
+        StringBuilder sb = new StringBuilder(instruction).append(' ').append(d);
+        if (!j.isEmpty()) {
+            sb.append(", ").append(j);
+        }
+        if (!k.isEmpty()) {
+            sb.append(", ").append(k);
+        }
+        return sb.toString();
+    }
+
+    // Branches in flight carry their own prediction, so every fetch of a branch gets its
+    // own copy; other instructions are shared between loop iterations
+    public InstructionQueue fetchCopy() {
+        InstructionQueue copy = new InstructionQueue(instruction, d, j, k, issue, startTime, endTime, wbTime);
+        copy.isLoopStart = isLoopStart;
+        copy.isLoopEnd = isLoopEnd;
+        copy.opcode = opcode;
+        copy.dest = dest;
+        copy.src1 = src1;
+        copy.src2 = src2;
+        copy.immediate = immediate;
+        copy.pc = pc;
+        copy.targetLabel = targetLabel;
+        copy.target = target;
+        return copy;
     }
 }
@@ -0,0 +1,18 @@
+package src;
+
+// Where fetch gets instructions from, by fetch index. A Program is a static listing
+// and fetch follows branch targets through it; a trace is the already-executed
+// instruction stream, so fetch just walks it in order.
+public interface InstructionSource {
+
+    // The instruction at the index, or null past the end
+    InstructionQueue fetch(long index);
+
+    // True when the indices are a dynamic instruction stream rather than program addresses
+    boolean isTrace();
+
+    // The engine will never fetch below this index again, so a streaming source may drop it
+    default void release(long index) {}
+
+    default void close() {}
+}
@@ -1,23 +1,25 @@
 package src.Instructions;
 
 public class Register {
+    // Tag value meaning "no pending producer"; real producer tags start at 1
+    public static final int NO_TAG = 0;
 
     private double value;
     private String name;
-    private String Qi;
+    private int Qi;
 
     // Default constructor
     public Register() {
         this.value = 0;
         this.name = "";
-        this.Qi = "";
+        this.Qi = NO_TAG;
     }
 
     // Constructor that accepts an initial value for the register
     public Register(double value) {
         this.value = value;  // Initialize the register value
         this.name = "";      // Default name (can be set later)
-        this.Qi = "";        // Default Qi (can be set later)
+        this.Qi = NO_TAG;    // Default Qi (can be set later)
     }
 
     // Getters and Setters
@@ -37,17 +39,17 @@ public class Register {
         this.value = value;
     }
 
-    public String getQi() {
+    public int getQi() {
         return Qi;
     }
 
-    public void setQi(String qi) {
+    public void setQi(int qi) {
         Qi = qi;
     }
 
-    // Method to check if the register is ready (Qi is empty)
+    // Method to check if the register is ready (no pending producer)
     public boolean regReady() {
-        return Qi.equals("");  // If Qi is empty, the register is ready
+        return Qi == NO_TAG;
     }
 
     // Method to update the value of the register
@@ -58,6 +60,6 @@ public class Register {
     // Reset method to reset the register to its initial state
     public void reset() {
         this.value = 0.0; // Reset to 0 as default
-        this.Qi = "";     // Clear any dependencies
+        this.Qi = NO_TAG; // Clear any dependencies
     }
 }
@@ -1,14 +1,35 @@
 package src.Instructions;
 
 public class RegisterFile {
-    public Register registers [] = new Register [32];
+    public Register registers [];
 
     public RegisterFile() {
-        for(int i = 0; i<32;i++) {
+        this(32);
+    }
+
+    public RegisterFile(int count) {
+        registers = new Register[count];
+        for(int i = 0; i<count;i++) {
             registers[i] = new Register();
             registers[i].setName("F"+i);
-            //Set Q to empty string
-            registers[i].setQi("");
+            //No pending producer
+            registers[i].setQi(Register.NO_TAG);
+        }
+    }
+
+    //get a register by number (F<number>)
+    public Register getRegister(int number) {
+        return registers[number];
+    }
+
+    public int size() {
+        return registers.length;
+    }
+
+    //clear every value and pending producer
+    public void reset() {
+        for (Register reg : registers) {
+            reg.reset();
         }
     }
 
@@ -32,12 +53,12 @@ public class RegisterFile {
     }
 
     //get the Qi of the register
-    public String getQi(String reg) {
+    public int getQi(String reg) {
         return registers[Integer.parseInt(reg.substring(1))].getQi();
     }
 
     //set the Qi of the register
-    public void setQi(String reg , String Qi) {
+    public void setQi(String reg , int Qi) {
         registers[Integer.parseInt(reg.substring(1))].setQi(Qi);
     }
 
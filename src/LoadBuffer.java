@@ -1,57 +1,124 @@
 package src;
 
+import src.Instructions.Register;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class LoadBuffer {
     private String name;
+    private final int tag;
     private boolean busy;
     private int address;
     private boolean executing;
+    private boolean resultReady;
+    private int seq;
+    private int robTag;
     private int executionCycles;
     private int remainingCycles;
     private double value;
     private boolean waitingForCache;
-    private static final int CACHE_MISS_PENALTY = 2;  // Reduced from 10
+    private boolean cacheMiss;     // The access in progress missed in L1
+    private boolean mshrStalled;   // The last attempt to start found every MSHR busy
+    private boolean unitStalled;   // The last attempt to start found every address unit busy
 
-    public LoadBuffer(String name) {
+    public LoadBuffer(String name, int tag) {
         this.name = name;
+        this.tag = tag;
         reset();
     }
 
-    public void execute(Memory memory, Cache cache) {
-        if (!executing && busy) {
-            // Start execution
+    public void execute(Memory memory, MemoryHierarchy caches, SimulationListener listener, int cycle) {
+        if (!executing && busy && !resultReady) {
+            // Start execution; the hierarchy decides how long the access takes
+            int cycles = caches.read(address, cycle);
+            if (cycles < 0) {
+                mshrStalled = true;
+                return;  // Every MSHR is busy; try again next cycle
+            }
+            mshrStalled = false;
+            cacheMiss = caches.getLastReadLevel() > 0;
             executing = true;
             waitingForCache = true;
-            remainingCycles = cache.hasBlock(address) ? 1 : CACHE_MISS_PENALTY;
-            
+            remainingCycles = cycles;
+            listener.onExecStart(cycle, name);
+
             // Get the value immediately
-            if (cache.hasBlock(address)) {
-                value = cache.read(address);
-                System.out.println(name + " cache hit, reading " + value + " from address " + address);
+            value = memory.read(address);
+            if (caches.getLastReadLevel() == 0) {
+                listener.onCacheHit(cycle, address);
             } else {
-                value = memory.read(address);
-                cache.loadBlock(address, memory);
-                System.out.println(name + " cache miss, loaded " + value + " from memory address " + address);
+                listener.onCacheMiss(cycle, address);
             }
         } else if (executing && busy) {
             remainingCycles--;
-            System.out.println(name + " remaining cycles: " + remainingCycles);
             if (remainingCycles <= 0) {
-                executing = false;  // Mark as ready for writeback
-                System.out.println(name + " completed load with value " + value + " - ready for writeback");
+                executing = false;
+                resultReady = true;  // Mark as ready for writeback
+                listener.onExecDone(cycle, name, value);
             }
         }
     }
 
+    // Takes the value of an older store to the same address instead of going to the cache
+    public void forward(double storeValue, int latency, SimulationListener listener, int cycle) {
+        executing = true;
+        cacheMiss = false;
+        remainingCycles = latency;
+        value = storeValue;
+        listener.onExecStart(cycle, name);
+    }
+
     public void reset() {
         busy = false;
         address = 0;
         executing = false;
+        resultReady = false;
+        seq = 0;
+        robTag = Register.NO_TAG;
         executionCycles = 2;
         remainingCycles = executionCycles;
         waitingForCache = false;
+        cacheMiss = false;
+        mshrStalled = false;
+        unitStalled = false;
         value = 0.0;
     }
 
+    // Checkpoint form of everything reset() clears
+    public void save(DataOutput out) throws IOException {
+        out.writeBoolean(busy);
+        out.writeInt(address);
+        out.writeBoolean(executing);
+        out.writeBoolean(resultReady);
+        out.writeInt(seq);
+        out.writeInt(robTag);
+        out.writeInt(executionCycles);
+        out.writeInt(remainingCycles);
+        out.writeDouble(value);
+        out.writeBoolean(waitingForCache);
+        out.writeBoolean(cacheMiss);
+        out.writeBoolean(mshrStalled);
+        out.writeBoolean(unitStalled);
+    }
+
+    public void restore(DataInput in) throws IOException {
+        busy = in.readBoolean();
+        address = in.readInt();
+        executing = in.readBoolean();
+        resultReady = in.readBoolean();
+        seq = in.readInt();
+        robTag = in.readInt();
+        executionCycles = in.readInt();
+        remainingCycles = in.readInt();
+        value = in.readDouble();
+        waitingForCache = in.readBoolean();
+        cacheMiss = in.readBoolean();
+        mshrStalled = in.readBoolean();
+        unitStalled = in.readBoolean();
+    }
+
     // New method to set the executing status
     public void setExecuting(boolean executing) {
         this.executing = executing;
@@ -59,11 +126,23 @@ public class LoadBuffer {
 
     // Getters and setters
     public String getName() { return name; }
+    public int getTag() { return tag; }
     public boolean isBusy() { return busy; }
     public void setBusy(boolean busy) { this.busy = busy; }
     public int getAddress() { return address; }
     public void setAddress(int address) { this.address = address; }
     public boolean isExecuting() { return executing; }
+    public boolean isResultReady() { return resultReady; }
+    public int getSeq() { return seq; }
+    public void setSeq(int seq) { this.seq = seq; }
+    public int getRobTag() { return robTag; }
+    public void setRobTag(int robTag) { this.robTag = robTag; }
     public double getValue() { return value; }
+    public int getRemainingCycles() { return remainingCycles; }
+    public void setRemainingCycles(int cycles) { this.remainingCycles = cycles; }
     public boolean isWaitingForCache() { return waitingForCache; }
+    public boolean isCacheMiss() { return cacheMiss; }
+    public boolean isMshrStalled() { return mshrStalled; }
+    public boolean isUnitStalled() { return unitStalled; }
+    public void setUnitStalled(boolean stalled) { this.unitStalled = stalled; }
 }
@@ -0,0 +1,515 @@
+package src;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+// Immutable description of the simulated machine: how many stations and buffers of each
+// kind, how many registers, the cache geometry and every latency. Build one in code with
+// builder(), or read a machine-description file with load().
+public class MachineConfig {
+    private final int addSubStations;
+    private final int mulDivStations;
+    private final int loadBuffers;
+    private final int storeBuffers;
+    private final int registerCount;
+    private final int issueWidth;
+    private final int cdbCount;
+    private final int robSize;
+    private final int commitWidth;
+    private final int fetchQueueSize;
+    private final boolean trapDivideByZero;
+    private final PredictorType predictorType;
+    private final int predictorTableBits;
+    private final int predictorHistoryBits;
+    private final SelectPolicy selectPolicy;
+    private final CacheConfig[] caches;  // L1 first
+    private final int mshrCount;
+    private final int memoryLatency;
+    private final long memorySize;        // in words
+    private final MemoryBacking memoryBacking;
+    private final String memoryFile;      // Backing file for MemoryBacking.MAPPED
+    private final String memoryImage;     // Loaded into memory on every reset, or null
+    private final int[] latencies;  // Indexed by Opcode.ordinal()
+    private final int[] unitCounts;        // Indexed by FunctionalUnitType.ordinal(), 0 = one per station
+    private final int[] unitIntervals;
+    private final boolean[] unitPipelined;
+
+    private MachineConfig(Builder b) {
+        this.addSubStations = b.addSubStations;
+        this.mulDivStations = b.mulDivStations;
+        this.loadBuffers = b.loadBuffers;
+        this.storeBuffers = b.storeBuffers;
+        this.registerCount = b.registerCount;
+        this.issueWidth = b.issueWidth;
+        this.cdbCount = b.cdbCount;
+        this.robSize = b.robSize;
+        this.commitWidth = b.commitWidth;
+        this.fetchQueueSize = b.fetchQueueSize;
+        this.trapDivideByZero = b.trapDivideByZero;
+        this.predictorType = b.predictorType;
+        this.predictorTableBits = b.predictorTableBits;
+        this.predictorHistoryBits = b.predictorHistoryBits;
+        this.selectPolicy = b.selectPolicy;
+        this.caches = new CacheConfig[b.cacheLevels()];
+        for (int level = 0; level < caches.length; level++) {
+            caches[level] = new CacheConfig(b.cacheSize[level], b.blockSize[level], b.associativity[level],
+                    b.cachePolicy[level], b.hitLatency[level], b.writeBack[level], b.writeAllocate[level]);
+        }
+        this.mshrCount = b.mshrCount;
+        this.memoryLatency = b.memoryLatency;
+        this.memorySize = b.memorySize;
+        this.memoryBacking = b.memoryBacking;
+        this.memoryFile = b.memoryFile;
+        this.memoryImage = b.memoryImage;
+        this.latencies = b.latencies.clone();
+        this.unitCounts = b.unitCounts.clone();
+        this.unitIntervals = b.unitIntervals.clone();
+        this.unitPipelined = b.unitPipelined.clone();
+    }
+
+    public static MachineConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        b.addSubStations = addSubStations;
+        b.mulDivStations = mulDivStations;
+        b.loadBuffers = loadBuffers;
+        b.storeBuffers = storeBuffers;
+        b.registerCount = registerCount;
+        b.issueWidth = issueWidth;
+        b.cdbCount = cdbCount;
+        b.robSize = robSize;
+        b.commitWidth = commitWidth;
+        b.fetchQueueSize = fetchQueueSize;
+        b.trapDivideByZero = trapDivideByZero;
+        b.predictorType = predictorType;
+        b.predictorTableBits = predictorTableBits;
+        b.predictorHistoryBits = predictorHistoryBits;
+        b.selectPolicy = selectPolicy;
+        for (int level = 0; level < caches.length; level++) {
+            CacheConfig c = caches[level];
+            b.cacheSize[level] = c.getSize();
+            b.blockSize[level] = c.getBlockSize();
+            b.associativity[level] = c.getAssociativity();
+            b.cachePolicy[level] = c.getPolicy();
+            b.hitLatency[level] = c.getHitLatency();
+            b.writeBack[level] = c.isWriteBack();
+            b.writeAllocate[level] = c.isWriteAllocate();
+        }
+        b.mshrCount = mshrCount;
+        b.memoryLatency = memoryLatency;
+        b.memorySize = memorySize;
+        b.memoryBacking = memoryBacking;
+        b.memoryFile = memoryFile;
+        b.memoryImage = memoryImage;
+        b.latencies = latencies.clone();
+        b.unitCounts = unitCounts.clone();
+        b.unitIntervals = unitIntervals.clone();
+        b.unitPipelined = unitPipelined.clone();
+        return b;
+    }
+
+    // Reads a machine-description file. Keys that are absent keep their default value:
+    //   addSubStations, mulDivStations, loadBuffers, storeBuffers, registers, issueWidth, cdbs,
+    //   rob.size, rob.commitWidth, fetch.queueSize, trapDivideByZero (true/false),
+    //   branch.predictor (not-taken, taken, btfn, bimodal, gshare), branch.tableBits, branch.historyBits,
+    //   scheduler.policy (oldest, position: which ready station gets a contended functional unit),
+    //   cache.<setting> for L1 and l2.<setting>, l3.<setting> for the optional lower levels:
+    //     size (0 leaves the level out), blockSize, associativity, policy (lru, plru, fifo, random),
+    //     hitLatency, writePolicy (write-back, write-through), writeAllocate (true/false)
+    //   cache.mshrs (outstanding L1 misses), memory.latency,
+    //   memory.size (words), memory.backing (heap, direct, mapped), memory.file, memory.image,
+    //   latency.<MNEMONIC> (e.g. latency.DIV.D=40),
+    //   fu.<add|mul|div|int|agu>.<setting> for the functional-unit pools: count (0, the
+    //     default, is one unit per station that can use the pool), interval (cycles between
+    //     operations a pipelined unit accepts), pipelined (true/false)
+    public static MachineConfig load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            props.load(in);
+        }
+        return fromProperties(props);
+    }
+
+    public static MachineConfig fromProperties(Properties props) {
+        return builder().apply(props).build();
+    }
+
+    public int getAddSubStations() { return addSubStations; }
+    public int getMulDivStations() { return mulDivStations; }
+    public int getLoadBuffers() { return loadBuffers; }
+    public int getStoreBuffers() { return storeBuffers; }
+    public int getRegisterCount() { return registerCount; }
+    public int getIssueWidth() { return issueWidth; }
+    public int getCdbCount() { return cdbCount; }
+    public int getRobSize() { return robSize; }
+    public int getCommitWidth() { return commitWidth; }
+    public int getFetchQueueSize() { return fetchQueueSize; }
+    public boolean isTrapDivideByZero() { return trapDivideByZero; }
+    public PredictorType getPredictorType() { return predictorType; }
+    public int getPredictorTableBits() { return predictorTableBits; }
+    public int getPredictorHistoryBits() { return predictorHistoryBits; }
+    public SelectPolicy getSelectPolicy() { return selectPolicy; }
+    public int getCacheLevels() { return caches.length; }
+    public CacheConfig getCache(int level) { return caches[level]; }
+    public int getMshrCount() { return mshrCount; }
+    public int getMemoryLatency() { return memoryLatency; }
+    public long getMemorySize() { return memorySize; }
+    public MemoryBacking getMemoryBacking() { return memoryBacking; }
+    public String getMemoryFile() { return memoryFile; }
+    public String getMemoryImage() { return memoryImage; }
+
+    // Execution latency of an arithmetic or branch operation; loads and stores are timed by the cache
+    public int getLatency(Opcode op) {
+        return latencies[op.ordinal()];
+    }
+
+    // Functional units in the pool, or 0 for one per station or buffer that uses it
+    public int getUnitCount(FunctionalUnitType type) { return unitCounts[type.ordinal()]; }
+    public int getUnitInterval(FunctionalUnitType type) { return unitIntervals[type.ordinal()]; }
+    public boolean isUnitPipelined(FunctionalUnitType type) { return unitPipelined[type.ordinal()]; }
+
+    @Override
+    public String toString() {
+        return "MachineConfig{addSub=" + addSubStations + ", mulDiv=" + mulDivStations
+                + ", load=" + loadBuffers + ", store=" + storeBuffers
+                + ", registers=" + registerCount + ", issueWidth=" + issueWidth + ", cdbs=" + cdbCount
+                + ", rob=" + robSize + ", commitWidth=" + commitWidth
+                + ", fetchQueue=" + fetchQueueSize + ", trapDivideByZero=" + trapDivideByZero
+                + ", predictor=" + predictorType + "/" + predictorTableBits + "/" + predictorHistoryBits
+                + ", select=" + selectPolicy
+                + ", caches=" + Arrays.toString(caches) + ", mshrs=" + mshrCount + ", memoryLatency=" + memoryLatency
+                + ", memory=" + memorySize + " words " + memoryBacking
+                + (memoryImage != null ? ", image=" + memoryImage : "")
+                + ", latencies=" + Arrays.toString(latencies)
+                + ", unitCounts=" + Arrays.toString(unitCounts) + ", unitIntervals=" + Arrays.toString(unitIntervals)
+                + ", unitPipelined=" + Arrays.toString(unitPipelined) + "}";
+    }
+
+    public static class Builder {
+        private int addSubStations = 3;
+        private int mulDivStations = 3;
+        private int loadBuffers = 3;
+        private int storeBuffers = 3;
+        private int registerCount = 32;
+        private int issueWidth = 1;
+        private int cdbCount = 1;
+        private int robSize = 16;
+        private int commitWidth = 1;
+        private int fetchQueueSize = 16;
+        private boolean trapDivideByZero = true;
+        private PredictorType predictorType = PredictorType.BIMODAL;
+        private int predictorTableBits = 10;
+        private int predictorHistoryBits = 8;
+        private SelectPolicy selectPolicy = SelectPolicy.OLDEST;
+        // Per cache level, L1 first; a lower level is present while its size is non-zero
+        private final int[] cacheSize = {64, 0, 0};
+        private final int[] blockSize = {16, 64, 64};
+        private final int[] associativity = {4, 8, 16};
+        private final ReplacementPolicy[] cachePolicy = {ReplacementPolicy.LRU, ReplacementPolicy.LRU, ReplacementPolicy.LRU};
+        private final int[] hitLatency = {1, 8, 30};
+        private final boolean[] writeBack = {true, true, true};
+        private final boolean[] writeAllocate = {true, true, true};
+        private int mshrCount = 4;
+        private int memoryLatency = 1;
+        private long memorySize = Memory.DEFAULT_SIZE;
+        private MemoryBacking memoryBacking = MemoryBacking.HEAP;
+        private String memoryFile;
+        private String memoryImage;
+        private int[] latencies = new int[Opcode.values().length];
+        private int[] unitCounts = new int[FunctionalUnitType.values().length];
+        private int[] unitIntervals = new int[FunctionalUnitType.values().length];
+        private boolean[] unitPipelined = new boolean[FunctionalUnitType.values().length];
+
+        private Builder() {
+            Arrays.fill(unitIntervals, 1);
+            Arrays.fill(unitPipelined, true);
+            Arrays.fill(latencies, 1);
+            latencies[Opcode.MUL_D.ordinal()] = 2;
+            latencies[Opcode.DIV_D.ordinal()] = 4;
+            latencies[Opcode.MUL_S.ordinal()] = 2;
+            latencies[Opcode.DIV_S.ordinal()] = 4;
+        }
+
+        public Builder addSubStations(int n) { this.addSubStations = n; return this; }
+        public Builder mulDivStations(int n) { this.mulDivStations = n; return this; }
+        public Builder loadBuffers(int n) { this.loadBuffers = n; return this; }
+        public Builder storeBuffers(int n) { this.storeBuffers = n; return this; }
+        public Builder registerCount(int n) { this.registerCount = n; return this; }
+        public Builder issueWidth(int n) { this.issueWidth = n; return this; }
+        public Builder cdbCount(int n) { this.cdbCount = n; return this; }
+        public Builder robSize(int n) { this.robSize = n; return this; }
+        public Builder commitWidth(int n) { this.commitWidth = n; return this; }
+        public Builder fetchQueueSize(int n) { this.fetchQueueSize = n; return this; }
+        public Builder trapDivideByZero(boolean trap) { this.trapDivideByZero = trap; return this; }
+        public Builder predictorType(PredictorType type) { this.predictorType = type; return this; }
+        public Builder predictorTableBits(int bits) { this.predictorTableBits = bits; return this; }
+        public Builder predictorHistoryBits(int bits) { this.predictorHistoryBits = bits; return this; }
+        public Builder selectPolicy(SelectPolicy policy) { this.selectPolicy = policy; return this; }
+        public Builder cacheSize(int bytes) { return cacheSize(0, bytes); }
+        public Builder blockSize(int bytes) { return blockSize(0, bytes); }
+
+        // Level 0 is L1; giving level 1 or 2 a non-zero size adds L2 or L3
+        public Builder cacheSize(int level, int bytes) { this.cacheSize[level] = bytes; return this; }
+        public Builder blockSize(int level, int bytes) { this.blockSize[level] = bytes; return this; }
+        public Builder cacheAssociativity(int level, int ways) { this.associativity[level] = ways; return this; }
+        public Builder cachePolicy(int level, ReplacementPolicy policy) { this.cachePolicy[level] = policy; return this; }
+        public Builder cacheHitLatency(int level, int cycles) { this.hitLatency[level] = cycles; return this; }
+
+        public Builder writePolicy(int level, boolean writeBack, boolean writeAllocate) {
+            this.writeBack[level] = writeBack;
+            this.writeAllocate[level] = writeAllocate;
+            return this;
+        }
+
+        public Builder mshrCount(int n) { this.mshrCount = n; return this; }
+        public Builder memoryLatency(int cycles) { this.memoryLatency = cycles; return this; }
+        public Builder memorySize(long words) { this.memorySize = words; return this; }
+        public Builder memoryBacking(MemoryBacking backing) { this.memoryBacking = backing; return this; }
+        public Builder memoryFile(String path) { this.memoryFile = path; return this; }
+        public Builder memoryImage(String path) { this.memoryImage = path; return this; }
+
+        public Builder latency(Opcode op, int cycles) {
+            latencies[op.ordinal()] = cycles;
+            return this;
+        }
+
+        // Count 0 gives every station or buffer that uses the pool a unit of its own
+        public Builder functionalUnits(FunctionalUnitType type, int count, int interval, boolean pipelined) {
+            unitCounts[type.ordinal()] = count;
+            unitIntervals[type.ordinal()] = interval;
+            unitPipelined[type.ordinal()] = pipelined;
+            return this;
+        }
+
+        // Overrides every setting that appears in the properties, see MachineConfig.load
+        public Builder apply(Properties props) {
+            for (String key : props.stringPropertyNames()) {
+                if (key.equals("trapDivideByZero")) {
+                    trapDivideByZero = parseFlag(key, props.getProperty(key));
+                    continue;
+                }
+                if (key.equals("branch.predictor")) {
+                    predictorType = PredictorType.fromName(props.getProperty(key).trim());
+                    if (predictorType == null) {
+                        throw new IllegalArgumentException("Unknown branch predictor: " + props.getProperty(key));
+                    }
+                    continue;
+                }
+                if (key.equals("scheduler.policy")) {
+                    selectPolicy = SelectPolicy.fromName(props.getProperty(key).trim());
+                    if (selectPolicy == null) {
+                        throw new IllegalArgumentException("Unknown scheduler policy: " + props.getProperty(key));
+                    }
+                    continue;
+                }
+                if (key.startsWith("memory.") && applyMemorySetting(key, props.getProperty(key).trim())) {
+                    continue;
+                }
+                if (key.equals("cache.mshrs")) {
+                    mshrCount = parseValue(key, props.getProperty(key));
+                    continue;
+                }
+                if (key.startsWith("fu.")) {
+                    applyUnitSetting(key, props.getProperty(key));
+                    continue;
+                }
+                int level = cacheLevelOf(key);
+                if (level >= 0) {
+                    applyCacheSetting(level, key, props.getProperty(key));
+                    continue;
+                }
+                int value = parseValue(key, props.getProperty(key));
+                switch (key) {
+                    case "addSubStations": addSubStations = value; break;
+                    case "mulDivStations": mulDivStations = value; break;
+                    case "loadBuffers": loadBuffers = value; break;
+                    case "storeBuffers": storeBuffers = value; break;
+                    case "registers": registerCount = value; break;
+                    case "issueWidth": issueWidth = value; break;
+                    case "cdbs": cdbCount = value; break;
+                    case "rob.size": robSize = value; break;
+                    case "rob.commitWidth": commitWidth = value; break;
+                    case "fetch.queueSize": fetchQueueSize = value; break;
+                    case "branch.tableBits": predictorTableBits = value; break;
+                    case "branch.historyBits": predictorHistoryBits = value; break;
+                    case "memory.latency": memoryLatency = value; break;
+                    default:
+                        if (!key.startsWith("latency.")) {
+                            throw new IllegalArgumentException("Unknown machine setting: " + key);
+                        }
+                        Opcode op = Opcode.fromMnemonic(key.substring("latency.".length()));
+                        if (op == null) {
+                            throw new IllegalArgumentException("Unknown operation in setting: " + key);
+                        }
+                        latency(op, value);
+                }
+            }
+            return this;
+        }
+
+        // The memory settings that are not plain integers; false for the others
+        private boolean applyMemorySetting(String key, String value) {
+            switch (key) {
+                case "memory.size":
+                    try {
+                        memorySize = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+                    }
+                    return true;
+                case "memory.backing":
+                    memoryBacking = MemoryBacking.fromName(value);
+                    if (memoryBacking == null) {
+                        throw new IllegalArgumentException("Unknown memory backing: " + value);
+                    }
+                    return true;
+                case "memory.file":
+                    memoryFile = value.isEmpty() ? null : value;
+                    return true;
+                case "memory.image":
+                    memoryImage = value.isEmpty() ? null : value;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static final String[] CACHE_PREFIXES = {"cache.", "l2.", "l3."};
+
+        private static int cacheLevelOf(String key) {
+            for (int level = 0; level < CACHE_PREFIXES.length; level++) {
+                if (key.startsWith(CACHE_PREFIXES[level])) {
+                    return level;
+                }
+            }
+            return -1;
+        }
+
+        private void applyCacheSetting(int level, String key, String value) {
+            String setting = key.substring(CACHE_PREFIXES[level].length());
+            switch (setting) {
+                case "size": cacheSize[level] = parseValue(key, value); break;
+                case "blockSize": blockSize[level] = parseValue(key, value); break;
+                case "associativity": associativity[level] = parseValue(key, value); break;
+                case "hitLatency": hitLatency[level] = parseValue(key, value); break;
+                case "writeAllocate": writeAllocate[level] = parseFlag(key, value); break;
+                case "policy":
+                    cachePolicy[level] = ReplacementPolicy.fromName(value.trim());
+                    if (cachePolicy[level] == null) {
+                        throw new IllegalArgumentException("Unknown replacement policy: " + value);
+                    }
+                    break;
+                case "writePolicy":
+                    if (value.trim().equalsIgnoreCase("write-back")) {
+                        writeBack[level] = true;
+                    } else if (value.trim().equalsIgnoreCase("write-through")) {
+                        writeBack[level] = false;
+                    } else {
+                        throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown machine setting: " + key);
+            }
+        }
+
+        private void applyUnitSetting(String key, String value) {
+            int dot = key.indexOf('.', "fu.".length());
+            FunctionalUnitType type = dot < 0 ? null : FunctionalUnitType.fromKey(key.substring("fu.".length(), dot));
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown machine setting: " + key);
+            }
+            switch (key.substring(dot + 1)) {
+                case "count": unitCounts[type.ordinal()] = parseValue(key, value); break;
+                case "interval": unitIntervals[type.ordinal()] = parseValue(key, value); break;
+                case "pipelined": unitPipelined[type.ordinal()] = parseFlag(key, value); break;
+                default:
+                    throw new IllegalArgumentException("Unknown machine setting: " + key);
+            }
+        }
+
+        // L1 always exists; L3 only counts below an L2
+        private int cacheLevels() {
+            if (cacheSize[1] == 0) return 1;
+            return cacheSize[2] == 0 ? 2 : 3;
+        }
+
+        public MachineConfig build() {
+            require(addSubStations >= 1, "addSubStations must be at least 1");
+            require(mulDivStations >= 1, "mulDivStations must be at least 1");
+            require(loadBuffers >= 1, "loadBuffers must be at least 1");
+            require(storeBuffers >= 1, "storeBuffers must be at least 1");
+            require(registerCount >= 1, "registers must be at least 1");
+            require(issueWidth >= 1, "issueWidth must be at least 1");
+            require(cdbCount >= 1, "cdbs must be at least 1");
+            require(robSize >= 1, "rob.size must be at least 1");
+            require(commitWidth >= 1, "rob.commitWidth must be at least 1");
+            require(fetchQueueSize >= 1, "fetch.queueSize must be at least 1");
+            require(predictorType != null, "branch.predictor must be set");
+            require(selectPolicy != null, "scheduler.policy must be set");
+            require(predictorTableBits >= 1 && predictorTableBits <= 24, "branch.tableBits must be between 1 and 24");
+            require(predictorHistoryBits >= 1 && predictorHistoryBits <= 30, "branch.historyBits must be between 1 and 30");
+            require(cacheSize[1] != 0 || cacheSize[2] == 0, "l3 needs an l2");
+            for (int level = 0; level < cacheLevels(); level++) {
+                String name = CACHE_PREFIXES[level];
+                int lines = blockSize[level] >= 1 ? cacheSize[level] / blockSize[level] : 0;
+                require(blockSize[level] >= 1 && lines >= 1,
+                        "Invalid cache parameters: " + name + "size=" + cacheSize[level] + ", block=" + blockSize[level]);
+                require(associativity[level] >= 1 && lines % associativity[level] == 0,
+                        name + "associativity must divide the " + lines + " cache lines");
+                require(cachePolicy[level] != null, name + "policy must be set");
+                require(cachePolicy[level] != ReplacementPolicy.PLRU
+                                || (Integer.bitCount(associativity[level]) == 1 && associativity[level] <= 32),
+                        name + "policy=plru needs a power-of-two associativity of at most 32");
+                require(hitLatency[level] >= 1, name + "hitLatency must be at least 1");
+            }
+            require(mshrCount >= 1, "cache.mshrs must be at least 1");
+            require(memoryLatency >= 1, "memory.latency must be at least 1");
+            require(memorySize >= 1 && memorySize <= (long) Integer.MAX_VALUE + 1,
+                    "memory.size must be between 1 and 2^31 words");
+            require(memoryBacking != null, "memory.backing must be set");
+            require(memoryBacking != MemoryBacking.MAPPED || memoryFile != null,
+                    "memory.backing=mapped needs memory.file");
+            for (Opcode op : Opcode.values()) {
+                require(latencies[op.ordinal()] >= 1, "latency." + op + " must be at least 1");
+            }
+            for (FunctionalUnitType type : FunctionalUnitType.values()) {
+                require(unitCounts[type.ordinal()] >= 0, "fu." + type.getKey() + ".count must not be negative");
+                require(unitIntervals[type.ordinal()] >= 1, "fu." + type.getKey() + ".interval must be at least 1");
+            }
+            return new MachineConfig(this);
+        }
+
+        private static int parseValue(String key, String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+            }
+        }
+
+        private static boolean parseFlag(String key, String value) {
+            String text = value.trim();
+            if (text.equalsIgnoreCase("true")) return true;
+            if (text.equalsIgnoreCase("false")) return false;
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+
+        private static void require(boolean condition, String message) {
+            if (!condition) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+}
@@ -1,40 +1,189 @@
 package src;
 
-public class Memory {
-    private double[] memory;
-    private static final int MEMORY_SIZE = 1024;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Word-addressed simulated memory: one double per address. Storage is split into pages
+// that are only allocated when first written, so a large address space costs nothing
+// until it is used and unwritten addresses read as 0. Pages can live on the heap, in
+// direct buffers or in a memory-mapped file, see MemoryBacking.
+public class Memory implements Closeable {
+    public static final int PAGE_WORDS = 4096;
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_BYTES = PAGE_WORDS * Double.BYTES;
+    public static final long DEFAULT_SIZE = 1L << 24;
+
+    private final long size;  // in words
+    private final MemoryBacking backing;
+    private final FileChannel file;
+    private DoubleBuffer[] pages;
+    private int allocatedPages;
 
     public Memory() {
-        memory = new double[MEMORY_SIZE];
+        this(DEFAULT_SIZE, MemoryBacking.HEAP, null);
+    }
+
+    // mappedFile is only used, and then required, for MemoryBacking.MAPPED
+    public Memory(long size, MemoryBacking backing, Path mappedFile) {
+        if (size < 1 || size > (long) Integer.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("Invalid memory size: " + size);
+        }
+        this.size = size;
+        this.backing = backing;
+        if (backing == MemoryBacking.MAPPED) {
+            if (mappedFile == null) {
+                throw new IllegalArgumentException("Mapped memory needs a backing file");
+            }
+            try {
+                this.file = FileChannel.open(mappedFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            this.file = null;
+        }
         reset();
     }
 
     public double read(int address) {
         if (isValidAddress(address)) {
-            return memory[address];
+            DoubleBuffer page = pages[address >>> PAGE_SHIFT];
+            return page == null ? 0 : page.get(address & (PAGE_WORDS - 1));
         }
         throw new IllegalArgumentException("Invalid memory address: " + address);
     }
 
     public void write(int address, double value) {
         if (isValidAddress(address)) {
-            memory[address] = value;
+            DoubleBuffer page = pages[address >>> PAGE_SHIFT];
+            if (page == null) {
+                if (value == 0) {
+                    return;  // Unallocated pages already read as 0
+                }
+                page = allocatePage(address >>> PAGE_SHIFT);
+            }
+            page.put(address & (PAGE_WORDS - 1), value);
         } else {
             throw new IllegalArgumentException("Invalid memory address: " + address);
         }
     }
 
+    // Drops every page, so all of memory reads as 0 again
     public void reset() {
-        // Initialize memory with some test values
-        for (int i = 0; i < MEMORY_SIZE; i++) {
-            memory[i] = 0;
+        pages = new DoubleBuffer[(int) ((size + PAGE_WORDS - 1) / PAGE_WORDS)];
+        allocatedPages = 0;
+        if (file != null) {
+            try {
+                file.truncate(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Reads a text image: each line is an address followed by one or more values for
+    // consecutive addresses; blank lines and lines starting with # are skipped
+    public void loadImage(Path image) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(image)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("[\\s,:]+");
+                try {
+                    int address = Integer.parseInt(fields[0]);
+                    for (int i = 1; i < fields.length; i++) {
+                        write(address + i - 1, Double.parseDouble(fields[i]));
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(image + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Checkpoint form: the number of allocated pages, then each page's index and words
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(allocatedPages);
+        for (int i = 0; i < pages.length; i++) {
+            DoubleBuffer page = pages[i];
+            if (page != null) {
+                out.writeInt(i);
+                for (int word = 0; word < PAGE_WORDS; word++) {
+                    out.writeDouble(page.get(word));
+                }
+            }
+        }
+    }
+
+    // Replaces the whole contents with pages written by save()
+    public void restore(DataInput in) throws IOException {
+        reset();
+        int count = in.readInt();
+        for (int n = 0; n < count; n++) {
+            int index = in.readInt();
+            if (index < 0 || index >= pages.length) {
+                throw new IOException("Checkpoint page " + index + " is outside memory");
+            }
+            DoubleBuffer page = allocatePage(index);
+            for (int word = 0; word < PAGE_WORDS; word++) {
+                page.put(word, in.readDouble());
+            }
+        }
+    }
+
+    private DoubleBuffer allocatePage(int index) {
+        DoubleBuffer page;
+        switch (backing) {
+            case DIRECT:
+                page = ByteBuffer.allocateDirect(PAGE_BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                break;
+            case MAPPED:
+                try {
+                    page = file.map(FileChannel.MapMode.READ_WRITE, (long) index * PAGE_BYTES, PAGE_BYTES)
+                            .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            default:
+                page = DoubleBuffer.allocate(PAGE_WORDS);
+                break;
+        }
+        pages[index] = page;
+        allocatedPages++;
+        return page;
+    }
+
+    public long getSize() { return size; }
+    public MemoryBacking getBacking() { return backing; }
+    public int getAllocatedPages() { return allocatedPages; }
+
+    @Override
+    public void close() throws IOException {
+        pages = new DoubleBuffer[0];
+        if (file != null) {
+            file.close();
         }
-        // Initialize memory for test case
-        memory[0] = 2.0;  // For L.D F6, 0
-        memory[4] = 2.0;  // For L.D F2, 4
     }
 
     private boolean isValidAddress(int address) {
-        return address >= 0 && address < MEMORY_SIZE;
+        return address >= 0 && address < size;
     }
 }
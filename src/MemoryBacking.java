@@ -0,0 +1,29 @@
+package src;
+
+// Where the pages of simulated memory live
+public enum MemoryBacking {
+    HEAP("heap"),      // Ordinary Java arrays
+    DIRECT("direct"),  // Direct buffers outside the Java heap
+    MAPPED("mapped");  // Pages of a memory-mapped file, so the OS pages them in and out
+
+    private final String name;
+
+    MemoryBacking(String name) {
+        this.name = name;
+    }
+
+    // Returns null for an unknown name
+    public static MemoryBacking fromName(String name) {
+        for (MemoryBacking backing : values()) {
+            if (backing.name.equalsIgnoreCase(name)) {
+                return backing;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
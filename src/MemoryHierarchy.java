@@ -0,0 +1,217 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// The caches between the load/store buffers and Memory, L1 first. Reads allocate in
+// every level they miss; writes follow each level's write-back/write-through and
+// write-allocate settings, and dirty evictions are written to the next level down.
+// Values always come from Memory; the hierarchy only decides how long an access takes
+// and how much traffic it causes.
+public class MemoryHierarchy {
+    private final Cache[] caches;
+    private final int[] hitLatencies;
+    private final int memoryLatency;
+    private int memoryReads;   // Blocks fetched from memory
+    private int memoryWrites;  // Writes and writebacks that reached memory
+    private int lastReadLevel; // Level that supplied the last read, caches.length for memory
+    private final MshrFile mshrs;
+    private int mshrMerges;    // L1 misses that joined a fetch already in flight
+    private int mshrStalls;    // Load-cycles lost because every MSHR was busy
+    private boolean counting = true;  // Off while warming, so the counters cover only timed accesses
+
+    public MemoryHierarchy(MachineConfig config) {
+        caches = new Cache[config.getCacheLevels()];
+        hitLatencies = new int[caches.length];
+        for (int level = 0; level < caches.length; level++) {
+            caches[level] = new Cache(config.getCache(level));
+            hitLatencies[level] = config.getCache(level).getHitLatency();
+        }
+        memoryLatency = config.getMemoryLatency();
+        mshrs = new MshrFile(config.getMshrCount());
+    }
+
+    // Starts a load at the given cycle and returns the cycles it takes, or -1 if it
+    // misses in L1 while every MSHR is busy and has to try again next cycle. A miss to
+    // a block that is already being fetched waits for that fetch instead of starting one.
+    public int read(int address, int cycle) {
+        int block = address / caches[0].getBlockSize();
+        int entry = mshrs.find(block, cycle);
+        if (entry >= 0) {
+            caches[0].recordSecondaryMiss();
+            mshrMerges++;
+            lastReadLevel = 1;
+            return mshrs.getReadyCycle(entry) - cycle;
+        }
+        if (!caches[0].contains(address) && mshrs.isFull(cycle)) {
+            mshrStalls++;
+            return -1;
+        }
+        int cycles = readFrom(0, address);
+        if (lastReadLevel > 0) {
+            mshrs.allocate(block, cycle, cycle + cycles);
+        }
+        return cycles;
+    }
+
+    // A load executed while fast-forwarding: blocks move as for read(), but nothing is
+    // timed, no MSHR is taken and no counter changes, so the report matches the stats
+    // in covering only the instructions simulated in detail
+    public void warm(int address) {
+        setCounting(false);
+        readFrom(0, address);
+        setCounting(true);
+    }
+
+    // A store executed while fast-forwarding, uncounted like warm()
+    public void warmWrite(int address) {
+        setCounting(false);
+        writeFrom(0, address);
+        setCounting(true);
+    }
+
+    private void setCounting(boolean counting) {
+        this.counting = counting;
+        for (Cache cache : caches) {
+            cache.setCounting(counting);
+        }
+    }
+
+    // Whether read(address, cycle) would return -1, without performing the access
+    public boolean isReadBlocked(int address, int cycle) {
+        int block = address / caches[0].getBlockSize();
+        return mshrs.find(block, cycle) < 0 && !caches[0].contains(address) && mshrs.isFull(cycle);
+    }
+
+    // First cycle after this one at which an MSHR frees
+    public int nextMshrFree(int cycle) {
+        return mshrs.nextFree(cycle);
+    }
+
+    // Blocked reads that were not retried because the engine skipped their cycles
+    public void recordMshrStalls(int n) {
+        mshrStalls += n;
+    }
+
+    private int readFrom(int level, int address) {
+        if (level == caches.length) {
+            if (counting) {
+                memoryReads++;
+            }
+            lastReadLevel = level;
+            return memoryLatency;
+        }
+        if (caches[level].hasBlock(address)) {
+            lastReadLevel = level;
+            return hitLatencies[level];
+        }
+        int cycles = hitLatencies[level] + readFrom(level + 1, address);
+        install(level, address);
+        return cycles;
+    }
+
+    // A committed store; stores retire without waiting, so no latency is returned
+    public void write(int address) {
+        writeFrom(0, address);
+    }
+
+    private void writeFrom(int level, int address) {
+        if (level == caches.length) {
+            if (counting) {
+                memoryWrites++;
+            }
+            return;
+        }
+        Cache cache = caches[level];
+        if (cache.write(address)) {
+            if (!cache.isWriteBack()) {
+                writeFrom(level + 1, address);
+            }
+        } else if (cache.isWriteAllocate()) {
+            readFrom(level + 1, address);
+            install(level, address);
+            if (cache.isWriteBack()) {
+                cache.markDirty(address);
+            } else {
+                writeFrom(level + 1, address);
+            }
+        } else {
+            writeFrom(level + 1, address);
+        }
+    }
+
+    private void install(int level, int address) {
+        int evicted = caches[level].fill(address);
+        if (evicted >= 0) {
+            writeBack(level + 1, evicted);
+        }
+    }
+
+    private void writeBack(int level, int address) {
+        while (level < caches.length) {
+            if (caches[level].absorbWriteback(address)) {
+                return;
+            }
+            level++;
+        }
+        if (counting) {
+            memoryWrites++;
+        }
+    }
+
+    // Brings a block into every level without counting the accesses
+    public void preload(int address) {
+        for (int level = caches.length - 1; level >= 0; level--) {
+            install(level, address);
+        }
+    }
+
+    // Checkpoint form of every level, the MSHRs and the counters
+    public void save(DataOutput out) throws IOException {
+        for (Cache cache : caches) {
+            cache.save(out);
+        }
+        mshrs.save(out);
+        out.writeInt(memoryReads);
+        out.writeInt(memoryWrites);
+        out.writeInt(lastReadLevel);
+        out.writeInt(mshrMerges);
+        out.writeInt(mshrStalls);
+    }
+
+    public void restore(DataInput in) throws IOException {
+        for (Cache cache : caches) {
+            cache.restore(in);
+        }
+        mshrs.restore(in);
+        memoryReads = in.readInt();
+        memoryWrites = in.readInt();
+        lastReadLevel = in.readInt();
+        mshrMerges = in.readInt();
+        mshrStalls = in.readInt();
+    }
+
+    public int getLevels() { return caches.length; }
+    public Cache getCache(int level) { return caches[level]; }
+    public int getLastReadLevel() { return lastReadLevel; }
+    public int getMemoryReads() { return memoryReads; }
+    public int getMemoryWrites() { return memoryWrites; }
+    public MshrFile getMshrs() { return mshrs; }
+    public int getMshrMerges() { return mshrMerges; }
+    public int getMshrStalls() { return mshrStalls; }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (int level = 0; level < caches.length; level++) {
+            Cache c = caches[level];
+            int accesses = c.getHits() + c.getMisses();
+            sb.append(String.format("L%d: %d hits, %d misses (%.1f%% hit rate), %d writebacks%n",
+                    level + 1, c.getHits(), c.getMisses(),
+                    accesses == 0 ? 0 : 100.0 * c.getHits() / accesses, c.getWritebacks()));
+        }
+        sb.append(String.format("MSHRs: %d, %d merged misses, %d load cycles stalled on full MSHRs%n", mshrs.size(), mshrMerges, mshrStalls));
+        sb.append(String.format("Memory: %d reads, %d writes%n", memoryReads, memoryWrites));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Miss status holding registers of a non-blocking L1: one entry per block being
+// fetched from below, held until the cycle the block arrives. An entry whose ready
+// cycle has passed is free, so nothing has to retire entries explicitly.
+public class MshrFile {
+    private final int[] blocks;       // L1 block number being fetched
+    private final int[] readyCycles;  // Cycle the block arrives
+
+    public MshrFile(int count) {
+        blocks = new int[count];
+        readyCycles = new int[count];
+    }
+
+    // Entry already fetching the block at this cycle, or -1
+    public int find(int block, int cycle) {
+        for (int i = 0; i < blocks.length; i++) {
+            if (readyCycles[i] > cycle && blocks[i] == block) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isFull(int cycle) {
+        return inFlight(cycle) == blocks.length;
+    }
+
+    public void allocate(int block, int cycle, int readyCycle) {
+        for (int i = 0; i < blocks.length; i++) {
+            if (readyCycles[i] <= cycle) {
+                blocks[i] = block;
+                readyCycles[i] = readyCycle;
+                return;
+            }
+        }
+        throw new IllegalStateException("No free MSHR");
+    }
+
+    public int getReadyCycle(int entry) {
+        return readyCycles[entry];
+    }
+
+    public int inFlight(int cycle) {
+        int n = 0;
+        for (int ready : readyCycles) {
+            if (ready > cycle) n++;
+        }
+        return n;
+    }
+
+    // First cycle after this one at which an entry frees, or Integer.MAX_VALUE if none is busy
+    public int nextFree(int cycle) {
+        int next = Integer.MAX_VALUE;
+        for (int ready : readyCycles) {
+            if (ready > cycle && ready < next) {
+                next = ready;
+            }
+        }
+        return next;
+    }
+
+    public int size() {
+        return blocks.length;
+    }
+
+    public void save(DataOutput out) throws IOException {
+        for (int i = 0; i < blocks.length; i++) {
+            out.writeInt(blocks[i]);
+            out.writeInt(readyCycles[i]);
+        }
+    }
+
+    public void restore(DataInput in) throws IOException {
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = in.readInt();
+            readyCycles[i] = in.readInt();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(readyCycles, 0);
+    }
+}
@@ -0,0 +1,55 @@
+package src;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Decoded operation of an instruction. Mnemonics are matched once, when the program is
+// loaded; the pipeline only ever switches on these constants.
+public enum Opcode {
+    L_D("L.D"),
+    S_D("S.D"),
+    ADD_D("ADD.D"),
+    SUB_D("SUB.D"),
+    MUL_D("MUL.D"),
+    DIV_D("DIV.D"),
+    ADD_S("ADD.S"),
+    SUB_S("SUB.S"),
+    MUL_S("MUL.S"),
+    DIV_S("DIV.S"),
+    DADDI("DADDI"),
+    DSUBI("DSUBI"),
+    BEQ("BEQ"),
+    BNE("BNE");
+
+    private static final Map<String, Opcode> BY_MNEMONIC = new HashMap<>();
+
+    static {
+        for (Opcode op : values()) {
+            BY_MNEMONIC.put(op.mnemonic, op);
+        }
+    }
+
+    private final String mnemonic;
+
+    Opcode(String mnemonic) {
+        this.mnemonic = mnemonic;
+    }
+
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    public boolean isBranch() {
+        return this == BEQ || this == BNE;
+    }
+
+    // Returns null for an unknown mnemonic
+    public static Opcode fromMnemonic(String mnemonic) {
+        return BY_MNEMONIC.get(mnemonic.toUpperCase());
+    }
+
+    @Override
+    public String toString() {
+        return mnemonic;
+    }
+}
@@ -0,0 +1,31 @@
+package src;
+
+// Branch predictors the engine can be built with, named as in machine-description files
+public enum PredictorType {
+    NOT_TAKEN("not-taken"),  // Static: always fall through
+    TAKEN("taken"),          // Static: always jump
+    BTFN("btfn"),            // Static: backward taken, forward not taken
+    BIMODAL("bimodal"),      // Table of 2-bit counters indexed by pc
+    GSHARE("gshare");        // Table of 2-bit counters indexed by pc xor global history
+
+    private final String name;
+
+    PredictorType(String name) {
+        this.name = name;
+    }
+
+    // Returns null for an unknown name
+    public static PredictorType fromName(String name) {
+        for (PredictorType type : values()) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,98 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// A loaded program: decoded instructions indexed by pc and the labels that name them.
+// Branch targets are resolved on first use after a change, so a branch may name a
+// label that is only defined further down.
+public class Program implements InstructionSource {
+    private final ArrayList<InstructionQueue> instructions = new ArrayList<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+    private boolean resolved = true;
+
+    // The label names the next instruction added (or the end of the program)
+    public void addLabel(String label) {
+        if (label.isEmpty() || !label.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid label: " + label);
+        }
+        if (labels.containsKey(label)) {
+            throw new IllegalArgumentException("Duplicate label: " + label);
+        }
+        labels.put(label, instructions.size());
+    }
+
+    public void add(InstructionQueue instruction) {
+        instruction.pc = instructions.size();
+        instructions.add(instruction);
+        if (instruction.opcode.isBranch()) {
+            resolved = false;
+        }
+    }
+
+    public InstructionQueue get(int pc) {
+        if (!resolved) {
+            resolveTargets();
+        }
+        return instructions.get(pc);
+    }
+
+    @Override
+    public InstructionQueue fetch(long index) {
+        return index < instructions.size() ? get((int) index) : null;
+    }
+
+    @Override
+    public boolean isTrace() {
+        return false;
+    }
+
+    public Map<String, Integer> getLabels() {
+        return Collections.unmodifiableMap(labels);
+    }
+
+    public int size() {
+        return instructions.size();
+    }
+
+    public void clear() {
+        instructions.clear();
+        labels.clear();
+        resolved = true;
+    }
+
+    // Unknown targets are reported and the branch falls through either way
+    private void resolveTargets() {
+        for (InstructionQueue instruction : instructions) {
+            if (!instruction.opcode.isBranch()) {
+                continue;
+            }
+            instruction.target = instruction.pc + 1;
+            if (instruction.targetLabel != null) {
+                Integer target = lookup(instruction.targetLabel);
+                if (target == null) {
+                    System.err.println("Unknown branch target: " + instruction.targetLabel);
+                } else {
+                    instruction.target = target;
+                }
+            }
+            // A backward branch closes a loop
+            if (instruction.target <= instruction.pc) {
+                instruction.isLoopEnd = true;
+                instructions.get(instruction.target).isLoopStart = true;
+            }
+        }
+        resolved = true;
+    }
+
+    private Integer lookup(String label) {
+        Integer target = labels.get(label);
+        if (target == null && label.matches("\\d{1,9}")) {
+            int number = Integer.parseInt(label);
+            target = number <= instructions.size() ? number : null;
+        }
+        return target;
+    }
+}
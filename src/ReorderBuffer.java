@@ -0,0 +1,109 @@
+package src;
+
+import src.Instructions.Register;
+
+// Circular reorder buffer holding every in-flight instruction in program order. Entries
+// are addressed by tag = slot + 1, so Register.NO_TAG never names a real entry; these
+// tags are what registers, stations and store buffers wait on.
+public class ReorderBuffer {
+    public static final int NO_FAULT = 0;
+    public static final int FAULT_DIVIDE_BY_ZERO = 1;
+
+    private final int capacity;
+    private final InstructionQueue[] instructions;
+    private final int[] destRegisters;
+    private final int[] units;         // Tag of the station or buffer executing the entry
+    private final boolean[] ready;
+    private final double[] values;
+    private final int[] faults;
+    private int head;                  // Slot of the oldest entry
+    private int count;
+
+    public ReorderBuffer(int capacity) {
+        this.capacity = capacity;
+        instructions = new InstructionQueue[capacity];
+        destRegisters = new int[capacity];
+        units = new int[capacity];
+        ready = new boolean[capacity];
+        values = new double[capacity];
+        faults = new int[capacity];
+    }
+
+    public boolean isFull() { return count == capacity; }
+    public boolean isEmpty() { return count == 0; }
+    public int size() { return count; }
+    public int getCapacity() { return capacity; }
+
+    // Appends an entry at the tail and returns its tag
+    public int allocate(InstructionQueue instruction, int destRegister, int unit) {
+        if (isFull()) {
+            throw new IllegalStateException("Reorder buffer is full");
+        }
+        int slot = (head + count) % capacity;
+        instructions[slot] = instruction;
+        destRegisters[slot] = destRegister;
+        units[slot] = unit;
+        ready[slot] = false;
+        values[slot] = 0;
+        faults[slot] = NO_FAULT;
+        count++;
+        return slot + 1;
+    }
+
+    public int getHead() {
+        return isEmpty() ? Register.NO_TAG : head + 1;
+    }
+
+    public int getTail() {
+        return isEmpty() ? Register.NO_TAG : (head + count - 1) % capacity + 1;
+    }
+
+    // Tag of the i-th oldest entry
+    public int tagAt(int i) {
+        return (head + i) % capacity + 1;
+    }
+
+    // Position of an entry counted from the head; smaller is older
+    public int ageOf(int tag) {
+        return (tag - 1 - head + capacity) % capacity;
+    }
+
+    public void setResult(int tag, double value, int fault) {
+        values[tag - 1] = value;
+        faults[tag - 1] = fault;
+        ready[tag - 1] = true;
+    }
+
+    public boolean isReady(int tag) { return ready[tag - 1]; }
+    public double getValue(int tag) { return values[tag - 1]; }
+    public int getFault(int tag) { return faults[tag - 1]; }
+    public int getDestRegister(int tag) { return destRegisters[tag - 1]; }
+    public int getUnit(int tag) { return units[tag - 1]; }
+    public InstructionQueue getInstruction(int tag) { return instructions[tag - 1]; }
+
+    // Removes the oldest entry once it has committed
+    public void retireHead() {
+        instructions[head] = null;
+        head = (head + 1) % capacity;
+        count--;
+    }
+
+    // Removes the youngest entry when it is squashed
+    public void removeTail() {
+        instructions[(head + count - 1) % capacity] = null;
+        count--;
+    }
+
+    public void clear() {
+        clear(Register.NO_TAG + 1);
+    }
+
+    // Empties the buffer so that the next entry allocated gets the given tag; used to
+    // put restored entries back under the tags the rest of the machine refers to
+    public void clear(int nextTag) {
+        while (count > 0) {
+            removeTail();
+        }
+        head = nextTag - 1;
+    }
+}
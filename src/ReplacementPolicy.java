@@ -0,0 +1,30 @@
+package src;
+
+// How a cache set chooses the line to evict once every way is valid
+public enum ReplacementPolicy {
+    LRU("lru"),        // Least recently used, from per-line access stamps
+    PLRU("plru"),      // Tree pseudo-LRU, one bit per internal node of the set
+    FIFO("fifo"),      // Oldest fill, from per-line fill stamps
+    RANDOM("random");  // Seeded, so runs are repeatable
+
+    private final String name;
+
+    ReplacementPolicy(String name) {
+        this.name = name;
+    }
+
+    // Returns null for an unknown name
+    public static ReplacementPolicy fromName(String name) {
+        for (ReplacementPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,31 +1,32 @@
 package src;
 
+import src.Instructions.Register;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class ReservationStation {
     private String name;
+    private final int tag;
     private boolean busy = false;
-    private String op; // instruction
+    private Opcode op; // instruction
     private double Vj;
     private double Vk;
-    private String Qj = "";
-    private String Qk = "";
+    private int Qj = Register.NO_TAG;
+    private int Qk = Register.NO_TAG;
     private boolean executing = false;
+    private boolean resultReady = false;  // Finished executing, waiting for the CDB
+    private int seq;                      // Issue order, used for CDB arbitration
+    private int robTag;                   // Reorder buffer entry this station produces
+    private boolean divideByZero;
     private double result;
     private int remainingCycles;
+    private int functionalUnit = FunctionalUnitPool.NO_UNIT;  // Pool unit running the operation
 
-    // Instruction latencies
-    private static final int ADD_LATENCY = 1;      // Reduced from 2
-    private static final int SUB_LATENCY = 1;      // Reduced from 2
-    private static final int MUL_LATENCY = 2;      // Reduced from 10
-    private static final int DIV_LATENCY = 4;      // Reduced from 40
-    private static final int ADD_S_LATENCY = 1;    // Reduced from 2
-    private static final int SUB_S_LATENCY = 1;    // Reduced from 2
-    private static final int MUL_S_LATENCY = 2;    // Reduced from 4
-    private static final int DIV_S_LATENCY = 4;    // Reduced from 8
-    private static final int INTEGER_LATENCY = 1;  // Same
-    private static final int BRANCH_LATENCY = 1;   // Same
-
-    public ReservationStation(String name) {
+    public ReservationStation(String name, int tag) {
         this.name = name;
+        this.tag = tag;
     }
 
     public boolean isBusy() {
@@ -36,11 +37,11 @@ public class ReservationStation {
         this.busy = busy;
     }
 
-    public String getOp() {
+    public Opcode getOp() {
         return op;
     }
 
-    public void setOp(String op) {
+    public void setOp(Opcode op) {
         this.op = op;
     }
 
@@ -60,19 +61,19 @@ public class ReservationStation {
         this.Vk = vk;
     }
 
-    public String getQj() {
+    public int getQj() {
         return Qj;
     }
 
-    public void setQj(String qj) {
+    public void setQj(int qj) {
         this.Qj = qj;
     }
 
-    public String getQk() {
+    public int getQk() {
         return Qk;
     }
 
-    public void setQk(String qk) {
+    public void setQk(int qk) {
         this.Qk = qk;
     }
 
@@ -84,6 +85,31 @@ public class ReservationStation {
         this.executing = executing;
     }
 
+    public boolean isResultReady() {
+        return resultReady;
+    }
+
+    public int getSeq() {
+        return seq;
+    }
+
+    public void setSeq(int seq) {
+        this.seq = seq;
+    }
+
+    public int getRobTag() {
+        return robTag;
+    }
+
+    public void setRobTag(int robTag) {
+        this.robTag = robTag;
+    }
+
+    // Set when the last operation divided by zero; the fault is raised when it commits
+    public boolean hasDivideByZero() {
+        return divideByZero;
+    }
+
     public double getResult() {
         return result;
     }
@@ -96,16 +122,66 @@ public class ReservationStation {
         return name;
     }
 
+    public int getTag() {
+        return tag;
+    }
+
+    // True once both operands have been captured
+    public boolean operandsReady() {
+        return Qj == Register.NO_TAG && Qk == Register.NO_TAG;
+    }
+
     public void reset() {
         busy = false;
-        op = "";
+        op = null;
         Vj = 0;
         Vk = 0;
-        Qj = "";
-        Qk = "";
+        Qj = Register.NO_TAG;
+        Qk = Register.NO_TAG;
         executing = false;
+        resultReady = false;
+        seq = 0;
+        robTag = Register.NO_TAG;
+        divideByZero = false;
         result = 0;
         remainingCycles = 0;
+        functionalUnit = FunctionalUnitPool.NO_UNIT;
+    }
+
+    // Checkpoint form of everything reset() clears
+    public void save(DataOutput out) throws IOException {
+        out.writeBoolean(busy);
+        out.writeInt(op == null ? -1 : op.ordinal());
+        out.writeDouble(Vj);
+        out.writeDouble(Vk);
+        out.writeInt(Qj);
+        out.writeInt(Qk);
+        out.writeBoolean(executing);
+        out.writeBoolean(resultReady);
+        out.writeInt(seq);
+        out.writeInt(robTag);
+        out.writeBoolean(divideByZero);
+        out.writeDouble(result);
+        out.writeInt(remainingCycles);
+        out.writeInt(functionalUnit);
+    }
+
+    public void restore(DataInput in) throws IOException {
+        busy = in.readBoolean();
+        int ordinal = in.readInt();
+        op = ordinal < 0 ? null : Opcode.values()[ordinal];
+        Vj = in.readDouble();
+        Vk = in.readDouble();
+        Qj = in.readInt();
+        Qk = in.readInt();
+        executing = in.readBoolean();
+        resultReady = in.readBoolean();
+        seq = in.readInt();
+        robTag = in.readInt();
+        divideByZero = in.readBoolean();
+        result = in.readDouble();
+        remainingCycles = in.readInt();
+        functionalUnit = in.readInt();
     }
 
     public void execute() {
@@ -113,79 +189,46 @@ public class ReservationStation {
         
         if (remainingCycles > 0) {
             remainingCycles--;
-            System.out.println(name + " executing " + op + ", " + remainingCycles + " cycles left");
             return;
         }
         
         // Only perform the operation when cycles are done
         if (remainingCycles == 0) {
-            System.out.println(name + " completing execution of " + op + " with Vj=" + Vj + " and Vk=" + Vk);
-            switch (op.toUpperCase()) {
-                case "ADD.D":
-                case "ADD.S":
-                case "DADDI":
+            switch (op) {
+                case ADD_D:
+                case ADD_S:
+                case DADDI:
                     result = Vj + Vk;
                     break;
-                case "SUB.D":
-                case "SUB.S":
-                case "DSUBI":
+                case SUB_D:
+                case SUB_S:
+                case DSUBI:
                     result = Vj - Vk;
                     break;
-                case "MUL.D":
-                case "MUL.S":
+                case MUL_D:
+                case MUL_S:
                     result = Vj * Vk;
                     break;
-                case "DIV.D":
-                case "DIV.S":
+                case DIV_D:
+                case DIV_S:
                     if (Vk == 0) {
-                        System.err.println("Error: Division by zero");
+                        divideByZero = true;
                         result = 0;
                     } else {
                         result = Vj / Vk;
                     }
                     break;
-                case "BEQ":
+                case BEQ:
                     result = (Vj == Vk) ? 1 : 0;
                     break;
-                case "BNE":
+                case BNE:
                     result = (Vj != Vk) ? 1 : 0;
                     break;
                 default:
                     System.err.println("Unknown operation: " + op);
             }
             executing = false;  // Mark execution as complete
-            System.out.println(name + " result: " + result);
-        }
-    }
-
-    public int getLatency() {
-        if (op == null) return 1;  // Default latency
-        
-        switch (op.toUpperCase()) {
-            case "ADD.D":
-                return ADD_LATENCY;
-            case "SUB.D":
-                return SUB_LATENCY;
-            case "MUL.D":
-                return MUL_LATENCY;
-            case "DIV.D":
-                return DIV_LATENCY;
-            case "ADD.S":
-                return ADD_S_LATENCY;
-            case "SUB.S":
-                return SUB_S_LATENCY;
-            case "MUL.S":
-                return MUL_S_LATENCY;
-            case "DIV.S":
-                return DIV_S_LATENCY;
-            case "DADDI":
-            case "DSUBI":
-                return INTEGER_LATENCY;
-            case "BEQ":
-            case "BNE":
-                return BRANCH_LATENCY;
-            default:
-                return 1;  // Default latency for unknown operations
+            resultReady = true;
         }
     }
 
@@ -196,4 +239,12 @@ public class ReservationStation {
     public void setCyclesLeft(int cycles) {
         this.remainingCycles = cycles;
     }
+
+    public int getFunctionalUnit() {
+        return functionalUnit;
+    }
+
+    public void setFunctionalUnit(int unit) {
+        this.functionalUnit = unit;
+    }
 }
@@ -0,0 +1,109 @@
+package src;
+
+// Estimates the CPI of a long run from periodic detailed samples, after SMARTS. Every
+// period of instructions starts with a detailed warm-up that refills the pipeline and
+// is not measured, then a measured window whose CPI is one sample; the rest of the
+// period is fast-forwarded with the caches and predictor kept warm. The mean of the
+// samples estimates the CPI of the whole run, and their spread gives a confidence
+// interval, so only (warmup + window) / period of the instructions cost a detailed step.
+public class SamplingRunner {
+    private static final double Z_95 = 1.96;  // Two-sided 95% normal quantile
+
+    private final long period;
+    private final int warmup;
+    private final int window;
+
+    public SamplingRunner(long period, int warmup, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Sample window must be at least 1 instruction");
+        }
+        if (warmup < 0 || period < (long) warmup + window) {
+            throw new IllegalArgumentException("Sample period must cover the warm-up and the window");
+        }
+        this.period = period;
+        this.warmup = warmup;
+        this.window = window;
+    }
+
+    // Runs the engine's loaded program or trace to the end
+    public Result run(TomasuloEngine engine) {
+        long samples = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        long detailed = 0;
+        boolean fastForwarded = false;
+        while (!engine.isComplete()) {
+            long start = engine.getRetired();
+            engine.runUntilRetired(start + warmup);
+            long measureStart = engine.getRetired();
+            int cycleStart = engine.getCurrentCycle();
+            engine.runUntilRetired(measureStart + window);
+            long measured = engine.getRetired() - measureStart;
+            detailed += engine.getRetired() - start;
+            // A window cut short by the end of the run includes the drain, so it is no sample
+            if (measured >= window) {
+                double cpi = (double) (engine.getCurrentCycle() - cycleStart) / measured;
+                samples++;
+                sum += cpi;
+                sumOfSquares += cpi * cpi;
+            }
+            if (!engine.isComplete()) {
+                long rest = period - (engine.getRetired() - start);
+                fastForwarded |= engine.fastForward(rest, true) > 0;
+            }
+        }
+
+        long instructions = engine.getRetired();
+        if (!fastForwarded) {
+            // Everything ran in detail, so the cycle count is exact
+            double cpi = instructions == 0 ? 0 : (double) engine.getCurrentCycle() / instructions;
+            return new Result(instructions, instructions, samples, cpi, 0, engine.getCurrentCycle());
+        }
+        double mean = samples == 0 ? 0 : sum / samples;
+        double variance = samples < 2 ? 0 : Math.max(0, (sumOfSquares - samples * mean * mean) / (samples - 1));
+        double halfWidth = samples < 2 ? Double.NaN : Z_95 * Math.sqrt(variance / samples);
+        return new Result(instructions, detailed, samples, mean, halfWidth, Math.round(mean * instructions));
+    }
+
+    public static class Result {
+        private final long instructions;  // Committed over the whole run, fast-forwarded or not
+        private final long detailed;      // Of which run in detail, warm-up included
+        private final long samples;
+        private final double cpi;
+        private final double halfWidth;   // Of the 95% confidence interval; NaN with under two samples
+        private final long cycles;        // Estimated for the whole run
+
+        Result(long instructions, long detailed, long samples, double cpi, double halfWidth, long cycles) {
+            this.instructions = instructions;
+            this.detailed = detailed;
+            this.samples = samples;
+            this.cpi = cpi;
+            this.halfWidth = halfWidth;
+            this.cycles = cycles;
+        }
+
+        public long getInstructions() { return instructions; }
+        public long getDetailedInstructions() { return detailed; }
+        public long getSamples() { return samples; }
+        public double getCpi() { return cpi; }
+        public double getConfidenceHalfWidth() { return halfWidth; }
+        public long getEstimatedCycles() { return cycles; }
+        public boolean isExact() { return detailed == instructions; }
+
+        public String report() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Sampling: %d samples, %d of %d instructions in detail (%.2f%%)%n",
+                    samples, detailed, instructions, instructions == 0 ? 0 : 100.0 * detailed / instructions));
+            if (isExact()) {
+                sb.append(String.format("  CPI %.3f (exact, nothing was fast-forwarded)%n", cpi));
+            } else if (Double.isNaN(halfWidth)) {
+                sb.append(String.format("  CPI %.3f (too few samples for a confidence interval)%n", cpi));
+            } else {
+                sb.append(String.format("  CPI %.3f +/- %.3f (95%% confidence, +/- %.1f%%)%n",
+                        cpi, halfWidth, cpi == 0 ? 0 : 100 * halfWidth / cpi));
+            }
+            sb.append(String.format("  IPC %.3f, about %d cycles%n", cpi == 0 ? 0 : 1 / cpi, cycles));
+            return sb.toString();
+        }
+    }
+}
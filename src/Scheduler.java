@@ -0,0 +1,202 @@
+package src;
+
+import java.util.Arrays;
+
+// Select logic for the reservation stations. Station state is mirrored in bitmasks
+// indexed by unit tag: busy, woken, ready to start (one mask per functional-unit
+// class), executing and finished. A station whose last operand arrives on a CDB is
+// woken in that cycle and only becomes ready for selection in the next one. An age
+// matrix records, for every busy station, which of the others were issued before it,
+// so the oldest of any set of stations is the one with no older member in the set.
+// Picking, counting and walking stations then costs a few word operations per 64
+// stations instead of a pass over the station objects.
+public class Scheduler {
+    public static final int NONE = -1;
+
+    private final SelectPolicy policy;
+    private final long[] busy;
+    private final long[] woken;     // Last operand broadcast this cycle, ready from the next
+    private final long[][] ready;   // [FunctionalUnitType][word] operands ready, no unit yet
+    private final long[] executing;
+    private final long[] finished;  // Waiting for a CDB
+    private final long[][] older;   // older[tag]: busy stations issued before this one
+
+    // Tags 0..size-1; Register.NO_TAG is never inserted
+    public Scheduler(int size, SelectPolicy policy) {
+        int words = (size + 63) >>> 6;
+        this.policy = policy;
+        this.busy = new long[words];
+        this.woken = new long[words];
+        this.ready = new long[FunctionalUnitType.values().length][words];
+        this.executing = new long[words];
+        this.finished = new long[words];
+        this.older = new long[size][words];
+    }
+
+    // A station was issued; it is younger than every station already busy
+    public void insert(int tag) {
+        int word = tag >>> 6;
+        long bit = 1L << tag;
+        // The slot may have been older than some of them in an earlier life
+        for (long[] row : older) {
+            row[word] &= ~bit;
+        }
+        System.arraycopy(busy, 0, older[tag], 0, busy.length);
+        busy[word] |= bit;
+    }
+
+    // The station was freed by a broadcast or a squash
+    public void remove(int tag) {
+        int word = tag >>> 6;
+        long bit = ~(1L << tag);
+        busy[word] &= bit;
+        woken[word] &= bit;
+        for (long[] mask : ready) {
+            mask[word] &= bit;
+        }
+        executing[word] &= bit;
+        finished[word] &= bit;
+    }
+
+    public void wake(int tag) {
+        woken[tag >>> 6] |= 1L << tag;
+    }
+
+    public boolean isWoken(int tag) {
+        return (woken[tag >>> 6] & (1L << tag)) != 0;
+    }
+
+    public boolean hasWoken() {
+        return any(woken);
+    }
+
+    // Forgets the woken stations once the engine has made them ready
+    public void clearWoken() {
+        Arrays.fill(woken, 0);
+    }
+
+    public void setReady(int tag, FunctionalUnitType type) {
+        ready[type.ordinal()][tag >>> 6] |= 1L << tag;
+    }
+
+    public void start(int tag, FunctionalUnitType type) {
+        ready[type.ordinal()][tag >>> 6] &= ~(1L << tag);
+        executing[tag >>> 6] |= 1L << tag;
+    }
+
+    public void finish(int tag) {
+        executing[tag >>> 6] &= ~(1L << tag);
+        finished[tag >>> 6] |= 1L << tag;
+    }
+
+    // The ready station of this class that the policy starts next, or NONE
+    public int select(FunctionalUnitType type) {
+        long[] candidates = ready[type.ordinal()];
+        for (int word = 0; word < candidates.length; word++) {
+            for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                int tag = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (policy == SelectPolicy.POSITION || isOldest(tag, candidates)) {
+                    return tag;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    private boolean isOldest(int tag, long[] candidates) {
+        long[] row = older[tag];
+        for (int word = 0; word < row.length; word++) {
+            if ((row[word] & candidates[word]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int readyCount(FunctionalUnitType type) {
+        return count(ready[type.ordinal()], null);
+    }
+
+    // Stations of the given tags in each state, for per-cycle sampling
+    public int busyCount(long[] tags) { return count(busy, tags); }
+    public int readyCount(long[] tags) {
+        int n = 0;
+        for (long[] mask : ready) {
+            n += count(mask, tags);
+        }
+        return n;
+    }
+    public int executingCount(long[] tags) { return count(executing, tags); }
+    public int finishedCount(long[] tags) { return count(finished, tags); }
+
+    private static int count(long[] mask, long[] tags) {
+        int n = 0;
+        for (int word = 0; word < mask.length; word++) {
+            n += Long.bitCount(tags == null ? mask[word] : mask[word] & tags[word]);
+        }
+        return n;
+    }
+
+    public boolean hasFinished() {
+        return any(finished);
+    }
+
+    private static boolean any(long[] mask) {
+        for (long word : mask) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks a state in tag order: the first tag at or after `from`, or NONE
+    public int nextWoken(int from) { return next(woken, from); }
+    public int nextExecuting(int from) { return next(executing, from); }
+    public int nextFinished(int from) { return next(finished, from); }
+
+    private static int next(long[] mask, int from) {
+        int word = from >>> 6;
+        if (word >= mask.length) {
+            return NONE;
+        }
+        long bits = mask[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == mask.length) {
+                return NONE;
+            }
+            bits = mask[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    // Lowest of the given tags whose station is free, or NONE
+    public int firstFree(long[] tags) {
+        for (int word = 0; word < tags.length; word++) {
+            long free = tags[word] & ~busy[word];
+            if (free != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(free);
+            }
+        }
+        return NONE;
+    }
+
+    // Mask with the given tags set, for the *Count methods
+    public long[] tagMask(int first, int count) {
+        long[] mask = new long[busy.length];
+        for (int tag = first; tag < first + count; tag++) {
+            mask[tag >>> 6] |= 1L << tag;
+        }
+        return mask;
+    }
+
+    public void clear() {
+        Arrays.fill(busy, 0);
+        Arrays.fill(woken, 0);
+        for (long[] mask : ready) {
+            Arrays.fill(mask, 0);
+        }
+        Arrays.fill(executing, 0);
+        Arrays.fill(finished, 0);
+    }
+}
@@ -0,0 +1,28 @@
+package src;
+
+// Which ready station gets a contended functional unit, named as in machine-description files
+public enum SelectPolicy {
+    OLDEST("oldest"),      // Earliest issued first, so no instruction can be starved
+    POSITION("position");  // Lowest-numbered station first, as a fixed-priority encoder would
+
+    private final String name;
+
+    SelectPolicy(String name) {
+        this.name = name;
+    }
+
+    // Returns null for an unknown name
+    public static SelectPolicy fromName(String name) {
+        for (SelectPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,38 @@
+package src;
+
+// Receives pipeline events from TomasuloEngine. Every callback defaults to a no-op, so a
+// sink only overrides what it needs; arguments are references the engine already holds,
+// so an engine running with NONE attached does no tracing work at all.
+public interface SimulationListener {
+    SimulationListener NONE = new SimulationListener() {};
+
+    // An instruction left the queue and was placed in the named station or buffer
+    default void onIssue(int cycle, InstructionQueue instruction, String unit) {}
+
+    // The instruction at the head of the queue could not issue; cause says why, as the
+    // stall is classified in the stats (a full ROB, or no free station or buffer of its kind)
+    default void onIssueStall(int cycle, InstructionQueue instruction, String cause) {}
+
+    default void onExecStart(int cycle, String unit) {}
+
+    default void onExecDone(int cycle, String unit, double result) {}
+
+    // A result was put on the common data bus
+    default void onBroadcast(int cycle, String unit, double value) {}
+
+    default void onCacheHit(int cycle, int address) {}
+
+    default void onCacheMiss(int cycle, int address) {}
+
+    // A load took its value from an older store in the store buffers
+    default void onStoreForward(int cycle, String load, String store, int address) {}
+
+    // An instruction retired from the head of the reorder buffer
+    default void onCommit(int cycle, InstructionQueue instruction) {}
+
+    // A branch resolved against its prediction; younger instructions were discarded
+    default void onMispredict(int cycle, InstructionQueue branch, int squashed) {}
+
+    // A faulting instruction reached the ROB head; the machine squashed everything and halted
+    default void onException(int cycle, InstructionQueue instruction, String message) {}
+}
@@ -0,0 +1,394 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Counters collected by TomasuloEngine while it runs. Everything is a primitive counter
+// bumped once per event, so collection is always on.
+public class SimulationStats {
+    private final int issueWidth;
+    private final int cdbCount;
+    private long cycles;
+    private long instructionsIssued;
+    private long instructionsCommitted;
+    private final long[] issueHistogram;  // [n] = cycles in which exactly n instructions issued
+    private long cdbBroadcasts;
+    private long cdbConflicts;            // Finished results that had to wait a cycle for a bus
+    private long robFullStalls;           // Issue attempts refused because the ROB was full
+    private long exceptions;
+    private long branches;                // Committed branches
+    private long mispredictions;          // Committed branches that were predicted wrong
+    private long flushes;
+    private long squashedInstructions;    // Wrong-path instructions discarded by flushes
+    private long flushPenaltyCycles;      // Cycles from fetching a mispredicted branch to redirect
+    private long loadsFromCache;
+    private long loadsForwarded;          // Loads that took their value from an older store
+    private long fetchStalls;             // Cycles issue found the fetch queue empty
+    private long fetchQueueFull;          // Cycles fetch left instructions behind for want of queue space
+    private long fetchQueueOccupancy;     // Queue entries summed over cycles, after issue
+    private final long[] structuralStalls = new long[UnitType.values().length];  // No free unit at issue
+    private final long[][] unitCycles = new long[UnitType.values().length][UnitState.values().length];
+    private long commitCycles;            // Cycles that committed at least one instruction
+    private long emptyRobCycles;          // Cycles with nothing to commit at all
+    private final long[][] headStalls = new long[UnitType.values().length][UnitState.values().length];
+    private final long[] functionalUnitWaits = new long[FunctionalUnitType.values().length];  // Station-cycles
+
+    public SimulationStats(int issueWidth, int cdbCount) {
+        this.issueWidth = issueWidth;
+        this.cdbCount = cdbCount;
+        this.issueHistogram = new long[issueWidth + 1];
+    }
+
+    public void recordIssueCycle(int issued) {
+        issueHistogram[issued]++;
+        instructionsIssued += issued;
+    }
+
+    public void recordBroadcasts(int granted, int denied) {
+        cdbBroadcasts += granted;
+        cdbConflicts += denied;
+    }
+
+    public void recordCommit() {
+        instructionsCommitted++;
+    }
+
+    public void recordRobFullStall() {
+        robFullStalls++;
+    }
+
+    public void recordException() {
+        exceptions++;
+    }
+
+    public void recordBranch(boolean mispredicted) {
+        branches++;
+        if (mispredicted) {
+            mispredictions++;
+        }
+    }
+
+    public void recordCacheLoad() {
+        loadsFromCache++;
+    }
+
+    public void recordForwardedLoad() {
+        loadsForwarded++;
+    }
+
+    public void recordFlush(int squashed, int penaltyCycles) {
+        flushes++;
+        squashedInstructions += squashed;
+        flushPenaltyCycles += penaltyCycles;
+    }
+
+    public void recordFetchStall() {
+        fetchStalls++;
+    }
+
+    public void recordFetchQueueFull() {
+        fetchQueueFull++;
+    }
+
+    // Entries left in the fetch queue at the end of n cycles
+    public void recordFetchQueueOccupancy(int entries, int n) {
+        fetchQueueOccupancy += (long) entries * n;
+    }
+
+    // The instruction at the head of the queue found every unit of its type busy
+    public void recordStructuralStall(UnitType type) {
+        structuralStalls[type.ordinal()]++;
+    }
+
+    // A ready station or buffer found every functional unit of its class busy
+    public void recordFunctionalUnitWait(FunctionalUnitType type) {
+        functionalUnitWaits[type.ordinal()]++;
+    }
+
+    public void recordCommitCycle() {
+        commitCycles++;
+    }
+
+    public void recordEmptyRobCycle() {
+        emptyRobCycles++;
+    }
+
+    // Nothing committed because the ROB head's unit was in this state
+    public void recordHeadStall(UnitType type, UnitState state) {
+        headStalls[type.ordinal()][state.ordinal()]++;
+    }
+
+    public void recordCycle() {
+        cycles++;
+    }
+
+    // Bulk forms for a run of cycles skipped in one go (see TomasuloEngine.runToCompletion):
+    // nothing issued or broadcast, and the caller records each cycle's stall causes
+    public void recordIdleCycles(int n) {
+        issueHistogram[0] += n;
+        cycles += n;
+    }
+
+    public void recordFetchStalls(int n) {
+        fetchStalls += n;
+    }
+
+    public void recordFetchQueueFulls(int n) {
+        fetchQueueFull += n;
+    }
+
+    public void recordRobFullStalls(int n) {
+        robFullStalls += n;
+    }
+
+    public void recordStructuralStalls(UnitType type, int n) {
+        structuralStalls[type.ordinal()] += n;
+    }
+
+    public void recordUnitCycles(UnitType type, UnitState state, long n) {
+        unitCycles[type.ordinal()][state.ordinal()] += n;
+    }
+
+    public void recordEmptyRobCycles(int n) {
+        emptyRobCycles += n;
+    }
+
+    public void recordHeadStalls(UnitType type, UnitState state, int n) {
+        headStalls[type.ordinal()][state.ordinal()] += n;
+    }
+
+    public void recordFunctionalUnitWaits(FunctionalUnitType type, long n) {
+        functionalUnitWaits[type.ordinal()] += n;
+    }
+
+    // Checkpoint form of every counter; the issue width must already match
+    public void save(DataOutput out) throws IOException {
+        long[] counters = counters();
+        for (long counter : counters) {
+            out.writeLong(counter);
+        }
+        for (long n : issueHistogram) {
+            out.writeLong(n);
+        }
+        out.writeLong(fetchStalls);
+        out.writeLong(fetchQueueFull);
+        out.writeLong(fetchQueueOccupancy);
+        out.writeLong(commitCycles);
+        out.writeLong(emptyRobCycles);
+        for (int type = 0; type < structuralStalls.length; type++) {
+            out.writeLong(structuralStalls[type]);
+            for (int state = 0; state < unitCycles[type].length; state++) {
+                out.writeLong(unitCycles[type][state]);
+                out.writeLong(headStalls[type][state]);
+            }
+        }
+        for (long n : functionalUnitWaits) {
+            out.writeLong(n);
+        }
+    }
+
+    public void restore(DataInput in) throws IOException {
+        long[] counters = new long[counters().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = in.readLong();
+        }
+        int i = 0;
+        cycles = counters[i++];
+        instructionsIssued = counters[i++];
+        instructionsCommitted = counters[i++];
+        cdbBroadcasts = counters[i++];
+        cdbConflicts = counters[i++];
+        robFullStalls = counters[i++];
+        exceptions = counters[i++];
+        branches = counters[i++];
+        mispredictions = counters[i++];
+        flushes = counters[i++];
+        squashedInstructions = counters[i++];
+        flushPenaltyCycles = counters[i++];
+        loadsFromCache = counters[i++];
+        loadsForwarded = counters[i];
+        for (int n = 0; n < issueHistogram.length; n++) {
+            issueHistogram[n] = in.readLong();
+        }
+        fetchStalls = in.readLong();
+        fetchQueueFull = in.readLong();
+        fetchQueueOccupancy = in.readLong();
+        commitCycles = in.readLong();
+        emptyRobCycles = in.readLong();
+        for (int type = 0; type < structuralStalls.length; type++) {
+            structuralStalls[type] = in.readLong();
+            for (int state = 0; state < unitCycles[type].length; state++) {
+                unitCycles[type][state] = in.readLong();
+                headStalls[type][state] = in.readLong();
+            }
+        }
+        for (int type = 0; type < functionalUnitWaits.length; type++) {
+            functionalUnitWaits[type] = in.readLong();
+        }
+    }
+
+    // In the order restore() assigns them
+    private long[] counters() {
+        return new long[] {cycles, instructionsIssued, instructionsCommitted, cdbBroadcasts, cdbConflicts,
+                robFullStalls, exceptions, branches, mispredictions, flushes, squashedInstructions,
+                flushPenaltyCycles, loadsFromCache, loadsForwarded};
+    }
+
+    public long getCycles() { return cycles; }
+    public long getInstructionsIssued() { return instructionsIssued; }
+    public long getInstructionsCommitted() { return instructionsCommitted; }
+    public long getCdbBroadcasts() { return cdbBroadcasts; }
+    public long getCdbConflicts() { return cdbConflicts; }
+    public long getRobFullStalls() { return robFullStalls; }
+    public long getExceptions() { return exceptions; }
+    public long getBranches() { return branches; }
+    public long getMispredictions() { return mispredictions; }
+    public long getFlushes() { return flushes; }
+    public long getSquashedInstructions() { return squashedInstructions; }
+    public long getFlushPenaltyCycles() { return flushPenaltyCycles; }
+    public long getLoadsFromCache() { return loadsFromCache; }
+    public long getLoadsForwarded() { return loadsForwarded; }
+
+    public long getFetchStalls() { return fetchStalls; }
+    public long getFetchQueueFull() { return fetchQueueFull; }
+    public long getStructuralStalls(UnitType type) { return structuralStalls[type.ordinal()]; }
+    public long getUnitCycles(UnitType type, UnitState state) { return unitCycles[type.ordinal()][state.ordinal()]; }
+    public long getCommitCycles() { return commitCycles; }
+    public long getEmptyRobCycles() { return emptyRobCycles; }
+    public long getHeadStalls(UnitType type, UnitState state) { return headStalls[type.ordinal()][state.ordinal()]; }
+    public long getFunctionalUnitWaits(FunctionalUnitType type) { return functionalUnitWaits[type.ordinal()]; }
+
+    public double getBranchAccuracy() {
+        return branches == 0 ? 0 : 1 - (double) mispredictions / branches;
+    }
+    public int getIssueWidth() { return issueWidth; }
+
+    // Cycles in which exactly n instructions were issued
+    public long getIssueCycles(int n) {
+        return issueHistogram[n];
+    }
+
+    // Average fetch queue entries waiting to issue
+    public double getFetchQueueOccupancy() {
+        return cycles == 0 ? 0 : (double) fetchQueueOccupancy / cycles;
+    }
+
+    public double getIpc() {
+        return cycles == 0 ? 0 : (double) instructionsCommitted / cycles;
+    }
+
+    // Fraction of all issue slots that issued an instruction
+    public double getIssueSlotUtilization() {
+        return cycles == 0 ? 0 : (double) instructionsIssued / (cycles * issueWidth);
+    }
+
+    // Fraction of all CDB slots that carried a result
+    public double getCdbUtilization() {
+        return cycles == 0 ? 0 : (double) cdbBroadcasts / (cycles * cdbCount);
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Cycles: %d, Committed: %d, IPC: %.3f%n", cycles, instructionsCommitted, getIpc()));
+        sb.append(String.format("Issue slots: %d-wide, %.1f%% used%n", issueWidth, 100 * getIssueSlotUtilization()));
+        for (int n = 0; n <= issueWidth; n++) {
+            sb.append(String.format("  %d issued: %d cycles%n", n, issueHistogram[n]));
+        }
+        sb.append(String.format("CDB: %d buses, %d broadcasts, %.1f%% used, %d conflicts%n",
+                cdbCount, cdbBroadcasts, 100 * getCdbUtilization(), cdbConflicts));
+        sb.append(String.format("ROB: %d full stalls, %d exceptions%n", robFullStalls, exceptions));
+        sb.append(String.format("Branches: %d, %d mispredicted, %.1f%% accuracy%n",
+                branches, mispredictions, 100 * getBranchAccuracy()));
+        sb.append(String.format("Flushes: %d, %d instructions squashed, %d penalty cycles (%.1f avg)%n",
+                flushes, squashedInstructions, flushPenaltyCycles,
+                flushes == 0 ? 0 : (double) flushPenaltyCycles / flushes));
+        long loads = loadsFromCache + loadsForwarded;
+        sb.append(String.format("Loads: %d from cache, %d forwarded from stores (%.1f%%)%n",
+                loadsFromCache, loadsForwarded, loads == 0 ? 0 : 100.0 * loadsForwarded / loads));
+        return sb.toString();
+    }
+
+    // Where the cycles went: what blocked commit, why issue stalled, how the units spent
+    // their time, and the likeliest bottlenecks ranked by the cycles they cost
+    public String bottleneckReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Commit: %.1f%% of cycles committing, %.1f%% with an empty ROB%n",
+                percent(commitCycles), percent(emptyRobCycles)));
+        for (UnitType type : UnitType.values()) {
+            for (UnitState state : UnitState.values()) {
+                long n = getHeadStalls(type, state);
+                if (n > 0) {
+                    sb.append(String.format("  head blocked in %s %s: %.1f%%%n", type, state, percent(n)));
+                }
+            }
+        }
+
+        sb.append(String.format("Issue stalls: %d cycles fetch queue empty, %d ROB full", fetchStalls, robFullStalls));
+        for (UnitType type : UnitType.values()) {
+            sb.append(String.format(", %d no free %s", getStructuralStalls(type), type));
+        }
+        sb.append(String.format("%n"));
+        sb.append(String.format("Fetch queue: %.2f entries on average, full for %d cycles (%.1f%%)%n",
+                getFetchQueueOccupancy(), fetchQueueFull, percent(fetchQueueFull)));
+
+        List<String> waits = new ArrayList<>();
+        for (FunctionalUnitType type : FunctionalUnitType.values()) {
+            waits.add(getFunctionalUnitWaits(type) + " " + type);
+        }
+        sb.append(String.format("Functional-unit waits (station-cycles): %s%n", String.join(", ", waits)));
+
+        sb.append(String.format("Units (average per cycle):%n"));
+        for (UnitType type : UnitType.values()) {
+            List<String> states = new ArrayList<>();
+            for (UnitState state : UnitState.values()) {
+                long n = getUnitCycles(type, state);
+                if (n > 0) {
+                    states.add(String.format("%.2f %s", cycles == 0 ? 0 : (double) n / cycles, state));
+                }
+            }
+            sb.append(String.format("  %s: %s%n", type, String.join(", ", states)));
+        }
+
+        // Candidates overlap (a full ROB and a slow head are often the same cycles), so
+        // this is a ranking of what to look at first, not a breakdown
+        Map<String, Long> candidates = new LinkedHashMap<>();
+        for (UnitType type : UnitType.values()) {
+            candidates.put("too few " + type, getStructuralStalls(type));
+            candidates.put(type + " latency", getHeadStalls(type, UnitState.EXECUTING));
+        }
+        candidates.put("ROB size", robFullStalls);
+        candidates.put("too few functional units", sum(headStalls, UnitState.UNIT_WAIT));
+        candidates.put("memory (cache capacity or MSHRs)", getHeadStalls(UnitType.LOAD, UnitState.MEMORY_WAIT));
+        candidates.put("CDB bandwidth", sum(headStalls, UnitState.CDB_WAIT));
+        candidates.put("true dependences", sum(headStalls, UnitState.RAW_WAIT));
+        candidates.put("front end (fetch, mispredictions)", emptyRobCycles);
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(candidates.entrySet());
+        ranked.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        List<String> top = new ArrayList<>();
+        for (Map.Entry<String, Long> candidate : ranked) {
+            if (candidate.getValue() == 0 || top.size() == 3) {
+                break;
+            }
+            top.add(String.format("%s (%.1f%%)", candidate.getKey(), percent(candidate.getValue())));
+        }
+        sb.append(String.format("Bottlenecks: %s%n", top.isEmpty() ? "none" : String.join(", ", top)));
+        return sb.toString();
+    }
+
+    private double percent(long n) {
+        return cycles == 0 ? 0 : 100.0 * n / cycles;
+    }
+
+    private static long sum(long[][] byType, UnitState state) {
+        long total = 0;
+        for (long[] states : byType) {
+            total += states[state.ordinal()];
+        }
+        return total;
+    }
+}
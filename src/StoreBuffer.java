@@ -1,15 +1,24 @@
 package src;
 
+import src.Instructions.Register;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class StoreBuffer {
     private String name;
+    private final int tag;
     private boolean busy;
     private int address;
     private double value;
-    private String Q;
+    private int Q;
     private boolean executing;
+    private int robTag;
 
-    public StoreBuffer(String name) {
+    public StoreBuffer(String name, int tag) {
         this.name = name;
+        this.tag = tag;
         reset();
     }
 
@@ -37,11 +46,11 @@ public class StoreBuffer {
         this.value = value;
     }
 
-    public String getQ() {
+    public int getQ() {
         return Q;
     }
 
-    public void setQ(String q) {
+    public void setQ(int q) {
         this.Q = q;
     }
 
@@ -57,11 +66,43 @@ public class StoreBuffer {
         return name;
     }
 
+    public int getTag() {
+        return tag;
+    }
+
+    public int getRobTag() {
+        return robTag;
+    }
+
+    public void setRobTag(int robTag) {
+        this.robTag = robTag;
+    }
+
+    // Checkpoint form of everything reset() clears
+    public void save(DataOutput out) throws IOException {
+        out.writeBoolean(busy);
+        out.writeInt(address);
+        out.writeDouble(value);
+        out.writeInt(Q);
+        out.writeBoolean(executing);
+        out.writeInt(robTag);
+    }
+
+    public void restore(DataInput in) throws IOException {
+        busy = in.readBoolean();
+        address = in.readInt();
+        value = in.readDouble();
+        Q = in.readInt();
+        executing = in.readBoolean();
+        robTag = in.readInt();
+    }
+
     public void reset() {
         busy = false;
         address = 0;
         value = 0;
-        Q = "";
+        Q = Register.NO_TAG;
         executing = false;
+        robTag = Register.NO_TAG;
     }
 }
@@ -0,0 +1,291 @@
+package src;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs one program or trace under every point of a parameter grid. A grid maps
+// machine-description keys (see MachineConfig.load) to the values to try; every
+// combination is applied on top of a base config and simulated by its own engine on a
+// thread pool. Engines share nothing but the immutable program text, so the sweep
+// scales with the number of cores.
+public class SweepRunner {
+    private final MachineConfig base;
+    private final Map<String, List<String>> grid = new LinkedHashMap<>();
+
+    public SweepRunner(MachineConfig base) {
+        this.base = base;
+    }
+
+    // Adds a dimension; later dimensions vary fastest
+    public SweepRunner vary(String key, List<String> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values for " + key);
+        }
+        grid.put(key, new ArrayList<>(values));
+        return this;
+    }
+
+    public List<String> getKeys() {
+        return new ArrayList<>(grid.keySet());
+    }
+
+    // Every combination of the grid values, in row-major order
+    public List<Map<String, String>> points() {
+        List<Map<String, String>> points = new ArrayList<>();
+        points.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<String>> dimension : grid.entrySet()) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for (Map<String, String> point : points) {
+                for (String value : dimension.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<>(point);
+                    next.put(dimension.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            points = expanded;
+        }
+        return points;
+    }
+
+    // Simulates the workload at every grid point on the given number of threads and
+    // returns the results in grid order
+    public List<Result> run(Path workload, boolean stream, int threads) throws IOException {
+        // Read once and shared read-only; traces are opened by each run
+        List<String> program = stream || BinaryTrace.isBinary(workload) ? null : Files.readAllLines(workload);
+        List<Map<String, String>> points = points();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < points.size(); i++) {
+                Map<String, String> point = points.get(i);
+                int index = i;
+                futures.add(pool.submit(() -> runPoint(point, index, workload, program)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Sweep failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // A bad grid point (e.g. an impossible cache geometry) becomes an error row
+    private Result runPoint(Map<String, String> point, int index, Path workload, List<String> program) {
+        TomasuloEngine engine = null;
+        try {
+            Properties settings = new Properties();
+            settings.putAll(point);
+            MachineConfig config = base.toBuilder().apply(settings).build();
+            if (config.getMemoryBacking() == MemoryBacking.MAPPED) {
+                // Concurrent runs cannot share one backing file
+                config = config.toBuilder().memoryFile(config.getMemoryFile() + "." + index).build();
+            }
+            engine = new TomasuloEngine(config);
+            if (program != null) {
+                engine.loadProgram(program);
+            } else {
+                engine.loadTrace(workload);
+            }
+            engine.runToCompletion();
+            return new Result(point, engine);
+        } catch (IOException | RuntimeException e) {
+            return new Result(point, e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            if (engine != null) {
+                engine.close();
+            }
+        }
+    }
+
+    // One row of the results table
+    public static class Result {
+        private final Map<String, String> point;
+        private final long cycles;
+        private final long committed;
+        private final double ipc;
+        private final double hitRate;  // L1, over loads and stores
+        private final String error;    // Why the point could not run, or null
+
+        Result(Map<String, String> point, TomasuloEngine engine) {
+            this.point = point;
+            SimulationStats stats = engine.getStats();
+            Cache l1 = engine.getCache();
+            int accesses = l1.getHits() + l1.getMisses();
+            this.cycles = stats.getCycles();
+            this.committed = stats.getInstructionsCommitted();
+            this.ipc = stats.getIpc();
+            this.hitRate = accesses == 0 ? 0 : (double) l1.getHits() / accesses;
+            this.error = engine.isHalted() ? engine.getException() : null;
+        }
+
+        Result(Map<String, String> point, String error) {
+            this.point = point;
+            this.cycles = 0;
+            this.committed = 0;
+            this.ipc = 0;
+            this.hitRate = 0;
+            this.error = error;
+        }
+
+        public Map<String, String> getPoint() { return point; }
+        public long getCycles() { return cycles; }
+        public long getCommitted() { return committed; }
+        public double getIpc() { return ipc; }
+        public double getHitRate() { return hitRate; }
+        public String getError() { return error; }
+    }
+
+    // Aligned text table, or CSV; one column per grid key followed by the results
+    public static String table(List<String> keys, List<Result> results, boolean csv) {
+        List<String[]> rows = new ArrayList<>();
+        List<String> header = new ArrayList<>(keys);
+        header.addAll(Arrays.asList("cycles", "committed", "IPC", "L1 hit %", "note"));
+        rows.add(header.toArray(new String[0]));
+        for (Result r : results) {
+            List<String> row = new ArrayList<>();
+            for (String key : keys) {
+                row.add(r.point.get(key));
+            }
+            row.add(String.valueOf(r.cycles));
+            row.add(String.valueOf(r.committed));
+            row.add(String.format("%.3f", r.ipc));
+            row.add(String.format("%.1f", 100 * r.hitRate));
+            row.add(r.error != null ? r.error : "");
+            rows.add(row.toArray(new String[0]));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (csv) {
+            for (String[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    String cell = row[i];
+                    if (cell.contains(",") || cell.contains("\"")) {
+                        cell = "\"" + cell.replace("\"", "\"\"") + "\"";
+                    }
+                    sb.append(i > 0 ? "," : "").append(cell);
+                }
+                sb.append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+        int[] widths = new int[header.size()];
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                widths[i] = Math.max(widths[i], row[i].length());
+            }
+        }
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                // Grid values and the note read left to right, numbers line up on the right
+                boolean left = i < keys.size() || i == row.length - 1;
+                String format = "%" + (left ? "-" : "") + widths[i] + "s";
+                sb.append(i > 0 ? "  " : "").append(String.format(format, row[i]));
+            }
+            while (sb.charAt(sb.length() - 1) == ' ') {
+                sb.setLength(sb.length() - 1);
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    // SweepRunner [--machine <file>] [--memory <image>] [--threads <n>] [--stream] [--csv]
+    //             [--grid <file>] [-p key=v1,v2,...]... <program>
+    public static void main(String[] args) throws IOException {
+        MachineConfig config = MachineConfig.defaults();
+        Map<String, List<String>> dimensions = new LinkedHashMap<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean stream = false;
+        boolean csv = false;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("-")) {
+            switch (args[first]) {
+                case "--machine":
+                    config = MachineConfig.load(Paths.get(args[first + 1]));
+                    first += 2;
+                    break;
+                case "--memory":
+                    config = config.toBuilder().memoryImage(args[first + 1]).build();
+                    first += 2;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[first + 1]);
+                    first += 2;
+                    break;
+                case "--stream":
+                    stream = true;
+                    first++;
+                    break;
+                case "--csv":
+                    csv = true;
+                    first++;
+                    break;
+                case "--grid":
+                    // Each key lists its values separated by commas; keys are taken in sorted order
+                    Properties grid = new Properties();
+                    try (Reader in = Files.newBufferedReader(Paths.get(args[first + 1]))) {
+                        grid.load(in);
+                    }
+                    for (String key : new TreeSet<>(grid.stringPropertyNames())) {
+                        dimensions.put(key, splitValues(grid.getProperty(key)));
+                    }
+                    first += 2;
+                    break;
+                case "-p":
+                    String[] setting = args[first + 1].split("=", 2);
+                    if (setting.length != 2) {
+                        System.err.println("Expected key=v1,v2,...: " + args[first + 1]);
+                        System.exit(1);
+                    }
+                    dimensions.put(setting[0].trim(), splitValues(setting[1]));
+                    first += 2;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[first]);
+                    System.exit(1);
+            }
+        }
+        if (first != args.length - 1 || threads < 1) {
+            System.err.println("Usage: SweepRunner [--machine <file>] [--memory <image>] [--threads <n>] [--stream] [--csv] [--grid <file>] [-p key=v1,v2,...]... <program>");
+            System.exit(1);
+        }
+
+        SweepRunner sweep = new SweepRunner(config);
+        for (Map.Entry<String, List<String>> dimension : dimensions.entrySet()) {
+            sweep.vary(dimension.getKey(), dimension.getValue());
+        }
+        List<Result> results = sweep.run(Paths.get(args[first]), stream, threads);
+        System.out.print(table(sweep.getKeys(), results, csv));
+    }
+
+    private static List<String> splitValues(String values) {
+        List<String> list = new ArrayList<>();
+        for (String value : values.split(",")) {
+            if (!value.trim().isEmpty()) {
+                list.add(value.trim());
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,236 @@
+package src;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Timeline of every dynamic instruction, one row per instruction in program order and
+// one primitive int array per column, so recording costs a few array stores per event.
+// Rows are added at issue; squashed instructions are always the youngest, so a squash
+// just truncates the table and what remains is the committed stream plus whatever is
+// still in flight. Cycles that have not happened yet (or never will, such as a store's
+// writeback) hold NONE.
+public class TimingTable {
+    public static final int NONE = -1;
+    private static final int INITIAL_ROWS = 1024;
+
+    private int size;
+    private int[] pc = new int[INITIAL_ROWS];
+    private int[] opcode = new int[INITIAL_ROWS];
+    private int[] dest = new int[INITIAL_ROWS];
+    private int[] src1 = new int[INITIAL_ROWS];
+    private int[] src2 = new int[INITIAL_ROWS];
+    private int[] immediate = new int[INITIAL_ROWS];
+    private int[] issue = new int[INITIAL_ROWS];
+    private int[] execStart = new int[INITIAL_ROWS];
+    private int[] execEnd = new int[INITIAL_ROWS];
+    private int[] writeback = new int[INITIAL_ROWS];
+    private int[] commit = new int[INITIAL_ROWS];
+
+    // Adds an instruction issued in the given cycle and returns its row
+    public int add(InstructionQueue instruction, int cycle) {
+        if (size == pc.length) {
+            grow();
+        }
+        int row = size++;
+        pc[row] = instruction.pc;
+        opcode[row] = instruction.opcode.ordinal();
+        dest[row] = instruction.dest;
+        src1[row] = instruction.src1;
+        src2[row] = instruction.src2;
+        immediate[row] = instruction.immediate;
+        issue[row] = cycle;
+        execStart[row] = NONE;
+        execEnd[row] = NONE;
+        writeback[row] = NONE;
+        commit[row] = NONE;
+        return row;
+    }
+
+    private void grow() {
+        int capacity = pc.length * 2;
+        pc = Arrays.copyOf(pc, capacity);
+        opcode = Arrays.copyOf(opcode, capacity);
+        dest = Arrays.copyOf(dest, capacity);
+        src1 = Arrays.copyOf(src1, capacity);
+        src2 = Arrays.copyOf(src2, capacity);
+        immediate = Arrays.copyOf(immediate, capacity);
+        issue = Arrays.copyOf(issue, capacity);
+        execStart = Arrays.copyOf(execStart, capacity);
+        execEnd = Arrays.copyOf(execEnd, capacity);
+        writeback = Arrays.copyOf(writeback, capacity);
+        commit = Arrays.copyOf(commit, capacity);
+    }
+
+    public void setExecStart(int row, int cycle) { execStart[row] = cycle; }
+    public void setExecEnd(int row, int cycle) { execEnd[row] = cycle; }
+    public void setWriteback(int row, int cycle) { writeback[row] = cycle; }
+    public void setCommit(int row, int cycle) { commit[row] = cycle; }
+
+    // Drops this row and every younger one
+    public void truncate(int row) {
+        size = Math.min(size, row);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() { return size; }
+    public int getPc(int row) { return pc[row]; }
+    public Opcode getOpcode(int row) { return Opcode.values()[opcode[row]]; }
+    public int getDest(int row) { return dest[row]; }
+    public int getSrc1(int row) { return src1[row]; }
+    public int getSrc2(int row) { return src2[row]; }
+    public int getImmediate(int row) { return immediate[row]; }
+    public int getIssue(int row) { return issue[row]; }
+    public int getExecStart(int row) { return execStart[row]; }
+    public int getExecEnd(int row) { return execEnd[row]; }
+    public int getWriteback(int row) { return writeback[row]; }
+    public int getCommit(int row) { return commit[row]; }
+
+    private static final String[] COLUMNS = {"seq", "pc", "op", "dest", "src1", "src2", "immediate",
+            "issue", "exec_start", "exec_end", "writeback", "commit"};
+
+    // One line per row; registers as F<n>, and cycles that did not happen are left empty
+    public void writeCsv(Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.write('\n');
+        for (int row = 0; row < size; row++) {
+            String[] cells = cells(row);
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(cells[i] != null ? cells[i] : "");
+            }
+            out.write('\n');
+        }
+    }
+
+    // An array of row objects; absent registers and cycles are null
+    public void writeJson(Writer out) throws IOException {
+        out.write("[\n");
+        for (int row = 0; row < size; row++) {
+            String[] cells = cells(row);
+            out.write("  {");
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    out.write(", ");
+                }
+                out.write('"');
+                out.write(COLUMNS[i]);
+                out.write("\": ");
+                boolean text = cells[i] != null && (i == 2 || (i >= 3 && i <= 5));
+                out.write(cells[i] == null ? "null" : text ? '"' + cells[i] + '"' : cells[i]);
+            }
+            out.write(row + 1 < size ? "},\n" : "}\n");
+        }
+        out.write("]\n");
+    }
+
+    private String[] cells(int row) {
+        return new String[] {
+                String.valueOf(row), String.valueOf(pc[row]), getOpcode(row).getMnemonic(),
+                register(dest[row]), register(src1[row]), register(src2[row]), String.valueOf(immediate[row]),
+                cycle(issue[row]), cycle(execStart[row]), cycle(execEnd[row]), cycle(writeback[row]), cycle(commit[row])
+        };
+    }
+
+    private static String register(int number) {
+        return number == InstructionQueue.NO_REGISTER ? null : "F" + number;
+    }
+
+    private static String cycle(int cycle) {
+        return cycle == NONE ? null : String.valueOf(cycle);
+    }
+
+    // CPI over the whole run, where the committed instructions spent their cycles, and
+    // the dataflow critical path through them
+    public String report(long cycles) {
+        long committed = 0;
+        long waiting = 0;     // Issue to execution start: operands, a free MSHR
+        long executing = 0;   // Execution start to end, inclusive
+        long cdbWait = 0;     // Execution end to broadcast
+        long commitWait = 0;  // Result ready to commit
+        for (int row = 0; row < size; row++) {
+            if (commit[row] == NONE) {
+                continue;
+            }
+            committed++;
+            int done = writeback[row] != NONE ? writeback[row] : execEnd[row];
+            waiting += execStart[row] - issue[row];
+            executing += execEnd[row] - execStart[row] + 1;
+            if (writeback[row] != NONE) {
+                cdbWait += writeback[row] - execEnd[row];
+            }
+            commitWait += commit[row] - done;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Timing: %d instructions, CPI %.3f%n", committed,
+                committed == 0 ? 0 : (double) cycles / committed));
+        long total = waiting + executing + cdbWait + commitWait;
+        appendPhase(sb, "waiting to execute", waiting, committed, total);
+        appendPhase(sb, "executing", executing, committed, total);
+        appendPhase(sb, "waiting for a CDB", cdbWait, committed, total);
+        appendPhase(sb, "waiting to commit", commitWait, committed, total);
+        int[] path = criticalPath();
+        sb.append(String.format("  critical path: %d cycles through %d instructions (%.1f%% of the run)%n",
+                path[0], path[1], cycles == 0 ? 0 : 100.0 * path[0] / cycles));
+        return sb.toString();
+    }
+
+    private static void appendPhase(StringBuilder sb, String phase, long cycles, long count, long total) {
+        sb.append(String.format("  %-19s %.2f cycles/instruction (%.1f%%)%n", phase + ":",
+                count == 0 ? 0 : (double) cycles / count, total == 0 ? 0 : 100.0 * cycles / total));
+    }
+
+    // Longest chain of committed instructions linked by register and store-to-load
+    // dependences, each weighted by its measured execution time plus broadcast. Returns
+    // {length in cycles, instructions on the chain}.
+    public int[] criticalPath() {
+        int[] finish = new int[size];
+        int[] depth = new int[size];
+        Map<Integer, Integer> writers = new HashMap<>();  // Register -> youngest committed writer
+        Map<Integer, Integer> stores = new HashMap<>();   // Address -> youngest committed store
+        int longest = 0;
+        int longestDepth = 0;
+        for (int row = 0; row < size; row++) {
+            if (commit[row] == NONE) {
+                continue;
+            }
+            int start = 0;
+            int chain = 0;
+            int[] producers = {producer(writers, src1[row]), producer(writers, src2[row]),
+                    opcode[row] == Opcode.L_D.ordinal() ? producer(stores, immediate[row]) : NONE};
+            for (int p : producers) {
+                if (p != NONE && finish[p] > start) {
+                    start = finish[p];
+                    chain = depth[p];
+                }
+            }
+            int done = writeback[row] != NONE ? writeback[row] : execEnd[row];
+            finish[row] = start + done - execStart[row] + 1;
+            depth[row] = chain + 1;
+            if (finish[row] > longest) {
+                longest = finish[row];
+                longestDepth = depth[row];
+            }
+            if (dest[row] != InstructionQueue.NO_REGISTER) {
+                writers.put(dest[row], row);
+            }
+            if (opcode[row] == Opcode.S_D.ordinal()) {
+                stores.put(immediate[row], row);
+            }
+        }
+        return new int[] {longest, longestDepth};
+    }
+
+    private static int producer(Map<Integer, Integer> writers, int key) {
+        Integer row = key == InstructionQueue.NO_REGISTER ? null : writers.get(key);
+        return row != null ? row : NONE;
+    }
+}
@@ -0,0 +1,1661 @@
+package src;
+
+import src.Instructions.Register;
+import src.Instructions.RegisterFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class TomasuloEngine {
+    private static final int CHECKPOINT_MAGIC = 0x544F4D43;  // "TOMC"
+    private static final int CHECKPOINT_VERSION = 6;
+    private static final FunctionalUnitType[] STATION_UNITS = {
+            FunctionalUnitType.FP_ADD, FunctionalUnitType.FP_MUL, FunctionalUnitType.FP_DIV, FunctionalUnitType.INTEGER};
+
+    private MachineConfig config;
+    private RegisterFile registerFile;
+    private Register[] registers;
+    private final Program program = new Program();
+    private InstructionSource source = program;            // The program, or a streamed trace
+    private FetchQueue instructionQueue;                    // Fetched, waiting to issue
+    private long fetchPc;                                   // Next fetch index in the source
+    private long retired;                                   // Instructions committed since reset
+    private BranchPredictor predictor;
+    private final FunctionalExecutor functional = new FunctionalExecutor();  // For fastForward
+    private ArrayList<ReservationStation> addSubRS;
+    private ArrayList<ReservationStation> mulDivRS;
+    private ArrayList<LoadBuffer> loadBuffers;
+    private ArrayList<StoreBuffer> storeBuffers;
+    private String[] unitNames;  // Indexed by unit tag, slot 0 is Register.NO_TAG
+    private UnitType[] unitTypes;
+    private ReservationStation[] stationsByTag;
+    private LoadBuffer[] loadsByTag;
+    private StoreBuffer[] storesByTag;
+    private FunctionalUnitPool[] functionalUnits;  // Indexed by FunctionalUnitType.ordinal()
+    private Scheduler scheduler;  // Which stations are busy, ready, running or finished, and their ages
+    private long[] addSubTags;    // Scheduler masks of each station kind
+    private long[] mulDivTags;
+    private ReorderBuffer rob;
+    private WakeupTable wakeup;  // Indexed by ROB tag, the producer every consumer waits on
+    private int[] cdbRequests;  // Tags of finished units competing for the CDBs this cycle
+    private int nextSeq;        // Issue sequence number handed to the next instruction
+    private int mispredictedBranch;  // ROB tag of the oldest branch found wrong this cycle
+    private SimulationStats stats;
+    private TimingTable timing;  // Per-instruction timeline, or null when not recorded
+    private int[] timingRows;    // Timing row of each ROB entry, indexed by ROB tag
+    private Memory memory;
+    private MemoryHierarchy caches;
+    private int currentCycle;
+    private boolean halted;     // Set when a faulting instruction reaches commit
+    private String exception;   // Description of the fault that halted the machine
+    private SimulationListener listener = SimulationListener.NONE;
+    private boolean cycleSkipping = true;  // runToCompletion jumps over idle cycles
+
+    public TomasuloEngine() {
+        this(MachineConfig.defaults());
+    }
+
+    public TomasuloEngine(MachineConfig config) {
+        setConfig(config);
+    }
+
+    // Rebuilds registers, stations and buffers for a new machine description and resets
+    public void setConfig(MachineConfig config) {
+        this.config = config;
+        buildMachine();
+        reset();
+    }
+
+    public MachineConfig getConfig() {
+        return config;
+    }
+
+    // Shorthand for replacing just the L1 geometry of the current machine
+    public void configureCache(int cacheSize, int blockSize) {
+        setConfig(config.toBuilder().cacheSize(cacheSize).blockSize(blockSize).build());
+    }
+
+    // Releases the memory backing and any open trace once the engine is no longer needed
+    public void close() {
+        source.close();
+        closeMemory();
+    }
+
+    private void closeMemory() {
+        if (memory != null) {
+            try {
+                memory.close();
+            } catch (IOException e) {
+                System.err.println("Could not release memory: " + e.getMessage());
+            }
+        }
+    }
+
+    private void buildMachine() {
+        closeMemory();
+        memory = new Memory(config.getMemorySize(), config.getMemoryBacking(),
+                config.getMemoryFile() != null ? Paths.get(config.getMemoryFile()) : null);
+
+        registerFile = new RegisterFile(config.getRegisterCount());
+        registers = registerFile.registers;
+
+        addSubRS = new ArrayList<>();
+        mulDivRS = new ArrayList<>();
+        loadBuffers = new ArrayList<>();
+        storeBuffers = new ArrayList<>();
+
+        // Every station and buffer gets a small integer tag; Register.NO_TAG stays reserved
+        int tag = 1;
+        for (int i = 0; i < config.getAddSubStations(); i++) {
+            addSubRS.add(new ReservationStation("Add" + (i + 1), tag++));
+        }
+        for (int i = 0; i < config.getMulDivStations(); i++) {
+            mulDivRS.add(new ReservationStation("Mult" + (i + 1), tag++));
+        }
+        for (int i = 0; i < config.getLoadBuffers(); i++) {
+            loadBuffers.add(new LoadBuffer("Load" + (i + 1), tag++));
+        }
+        for (int i = 0; i < config.getStoreBuffers(); i++) {
+            storeBuffers.add(new StoreBuffer("Store" + (i + 1), tag++));
+        }
+
+        unitNames = new String[tag];
+        unitNames[Register.NO_TAG] = "";
+        unitTypes = new UnitType[tag];
+        stationsByTag = new ReservationStation[tag];
+        loadsByTag = new LoadBuffer[tag];
+        storesByTag = new StoreBuffer[tag];
+        for (ReservationStation rs : addSubRS) {
+            unitNames[rs.getTag()] = rs.getName();
+            unitTypes[rs.getTag()] = UnitType.ADD_SUB;
+            stationsByTag[rs.getTag()] = rs;
+        }
+        for (ReservationStation rs : mulDivRS) {
+            unitNames[rs.getTag()] = rs.getName();
+            unitTypes[rs.getTag()] = UnitType.MUL_DIV;
+            stationsByTag[rs.getTag()] = rs;
+        }
+        for (LoadBuffer lb : loadBuffers) {
+            unitNames[lb.getTag()] = lb.getName();
+            unitTypes[lb.getTag()] = UnitType.LOAD;
+            loadsByTag[lb.getTag()] = lb;
+        }
+        for (StoreBuffer sb : storeBuffers) {
+            unitNames[sb.getTag()] = sb.getName();
+            unitTypes[sb.getTag()] = UnitType.STORE;
+            storesByTag[sb.getTag()] = sb;
+        }
+        functionalUnits = new FunctionalUnitPool[FunctionalUnitType.values().length];
+        for (FunctionalUnitType type : FunctionalUnitType.values()) {
+            functionalUnits[type.ordinal()] = new FunctionalUnitPool(unitCount(type),
+                    config.getUnitInterval(type), config.isUnitPipelined(type));
+        }
+        int stations = config.getAddSubStations() + config.getMulDivStations();
+        scheduler = new Scheduler(1 + stations, config.getSelectPolicy());
+        addSubTags = scheduler.tagMask(1, config.getAddSubStations());
+        mulDivTags = scheduler.tagMask(1 + config.getAddSubStations(), config.getMulDivStations());
+        rob = new ReorderBuffer(config.getRobSize());
+        instructionQueue = new FetchQueue(config.getFetchQueueSize());
+        timingRows = new int[config.getRobSize() + 1];
+        wakeup = new WakeupTable(config.getRobSize() + 1);
+        cdbRequests = new int[tag];
+    }
+
+    // A count of 0 gives every station or buffer that can use the pool its own unit, so
+    // the pool never holds anything up
+    private int unitCount(FunctionalUnitType type) {
+        if (config.getUnitCount(type) > 0) {
+            return config.getUnitCount(type);
+        }
+        switch (type) {
+            case FP_MUL:
+            case FP_DIV:
+                return config.getMulDivStations();
+            case AGU:
+                return config.getLoadBuffers() + config.getStoreBuffers();
+            default:
+                return config.getAddSubStations();
+        }
+    }
+
+    // Records the issue, execution, writeback and commit cycles of every instruction issued
+    // from now on; off by default since the table grows with the instruction count
+    public void setTimingRecorded(boolean recorded) {
+        timing = recorded ? new TimingTable() : null;
+        Arrays.fill(timingRows, TimingTable.NONE);
+    }
+
+    // The timeline of the current run, or null when it is not being recorded
+    public TimingTable getTimingTable() {
+        return timing;
+    }
+
+    // Pass null to detach the current sink
+    public void setListener(SimulationListener listener) {
+        this.listener = listener != null ? listener : SimulationListener.NONE;
+    }
+
+    public void setRegisterValue(String name, double value) {
+        int number = InstructionDecoder.parseRegister(name);
+        InstructionDecoder.checkRegister(number, registers.length);
+        registers[number].setValue(value);
+    }
+
+    // Parses every non-blank line of the program text and appends it to the queue
+    public void loadProgram(String program) {
+        String[] lines = program.split("\n");
+        for (String line : lines) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                parseInstruction(line);
+            }
+        }
+    }
+
+    public void loadProgram(List<String> lines) {
+        for (String line : lines) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                parseInstruction(line);
+            }
+        }
+    }
+
+    // Decodes one line, optionally prefixed with "LABEL:", and appends it to the program;
+    // malformed lines are reported and skipped
+    public void parseInstruction(String instruction) {
+        try {
+            int colon = instruction.indexOf(':');
+            if (colon >= 0) {
+                program.addLabel(instruction.substring(0, colon).trim());
+                instruction = instruction.substring(colon + 1).trim();
+                if (instruction.isEmpty()) {
+                    return;
+                }
+            }
+            InstructionQueue decoded = InstructionDecoder.decode(instruction);
+            InstructionDecoder.checkRegisters(decoded, registers.length);
+            InstructionDecoder.checkAddress(decoded, config.getMemorySize());
+            program.add(decoded);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    // Runs a text or binary trace (see TraceSource) instead of the loaded program. The
+    // trace is read as fetch reaches it, so it may be far larger than memory.
+    public void loadTrace(Path file) throws IOException {
+        TraceSource trace = TraceSource.open(file, registers.length, config.getMemorySize());
+        source.close();
+        source = trace;
+    }
+
+    // Advances the machine by one clock cycle: commit, fetch, issue, execute, write back
+    public void step() {
+        commit();
+        fetch();
+
+        // Issue in program order until the width is used up or the head cannot issue
+        int issued = 0;
+        while (issued < config.getIssueWidth() && tryIssueNextInstruction()) {
+            issued++;
+        }
+        stats.recordIssueCycle(issued);
+        stats.recordFetchQueueOccupancy(instructionQueue.size(), 1);
+
+        executeReservationStations();
+        performWriteBack();
+        sampleUnits(1);
+
+        currentCycle++;
+        stats.recordCycle();
+    }
+
+    // Runs until every instruction has left the machine; returns the cycle count. Cycles
+    // in which the machine only counts down latencies are skipped in one go unless
+    // skipping is turned off; the cycle count and statistics are the same either way.
+    public int runToCompletion() {
+        return runUntilRetired(Long.MAX_VALUE);
+    }
+
+    // Runs until the given number of instructions have committed since reset, or the
+    // machine completes; returns the cycle count. A cycle may commit several, so the
+    // count can end up a little past the target.
+    public int runUntilRetired(long target) {
+        while (!isComplete() && retired < target) {
+            step();
+            if (cycleSkipping) {
+                skipIdleCycles();
+            }
+        }
+        return currentCycle;
+    }
+
+    // Executes the next count instructions functionally. Registers and memory end up as
+    // the detailed machine would leave them, but no cycles pass and no statistics are
+    // kept. Anything in flight is discarded first and executed here, since nothing past
+    // the last commit is architectural yet. With warming, loads and stores also go
+    // through the caches and branches through the predictor, so a detailed run started
+    // afterwards finds them as if it had run all along. Returns the number executed,
+    // which falls short of count when the instructions run out or one faults.
+    public long fastForward(long count, boolean warm) {
+        flushPipeline();
+        long executed = 0;
+        while (executed < count && !halted) {
+            InstructionQueue instruction = source.fetch(fetchPc);
+            if (instruction == null) {
+                break;
+            }
+            if (config.isTrapDivideByZero() && functional.dividesByZero(instruction, registers)) {
+                halt(instruction, "Division by zero in " + instruction.instruction);
+                break;
+            }
+            boolean taken = functional.execute(instruction, registers, memory);
+            long next = fetchPc + 1;
+            if (instruction.opcode.isBranch()) {
+                if (!source.isTrace()) {
+                    next = taken ? instruction.target : instruction.pc + 1;
+                    if (taken && instruction.isLoopEnd) {
+                        instruction.loopIterations++;
+                    }
+                }
+                if (warm) {
+                    warmPredictor(instruction, taken);
+                }
+            } else if (warm && instruction.opcode == Opcode.L_D) {
+                caches.warm(instruction.immediate);
+            } else if (warm && instruction.opcode == Opcode.S_D) {
+                caches.warmWrite(instruction.immediate);
+            }
+            fetchPc = next;
+            source.release(++retired);
+            executed++;
+        }
+        return executed;
+    }
+
+    // Predicts the branch as fetch would and trains it as commit would, repairing the
+    // history where the detailed machine would have recovered from a misprediction
+    private void warmPredictor(InstructionQueue branch, boolean taken) {
+        int history = predictor.getHistory();
+        boolean predicted = predictor.predict(branch.pc, branch.target);
+        boolean wrong = source.isTrace() ? predicted != taken
+                : (predicted ? branch.target : branch.pc + 1) != (taken ? branch.target : branch.pc + 1);
+        if (wrong) {
+            predictor.recover(history, taken);
+        }
+        predictor.update(branch.pc, history, taken);
+    }
+
+    // Discards everything fetched but not committed and points fetch back at the oldest
+    // of it, as if the machine had stopped fetching and drained. Speculative predictor
+    // history goes back to before the oldest discarded branch.
+    private void flushPipeline() {
+        InstructionQueue oldest = null;
+        InstructionQueue oldestBranch = null;
+        for (int i = 0; i < rob.size() + instructionQueue.size(); i++) {
+            InstructionQueue instruction = i < rob.size() ? rob.getInstruction(rob.tagAt(i))
+                    : instructionQueue.get(i - rob.size());
+            if (oldest == null) {
+                oldest = instruction;
+            }
+            if (instruction.opcode.isBranch()) {
+                oldestBranch = instruction;
+                break;
+            }
+        }
+        if (oldest == null) {
+            return;
+        }
+        if (oldestBranch != null) {
+            predictor.rewind(oldestBranch.predictorHistory);
+        }
+        squashAfter(Register.NO_TAG);
+        instructionQueue.clear();
+        // Every committed instruction is one trace record
+        fetchPc = source.isTrace() ? retired : oldest.pc;
+    }
+
+    public void setCycleSkipping(boolean skipping) {
+        this.cycleSkipping = skipping;
+    }
+
+    // Advances straight to the next cycle in which anything besides a countdown can
+    // happen. Until then every cycle would record the same stalls and unit states, so
+    // they are added up here, and each countdown is reduced by the distance.
+    private void skipIdleCycles() {
+        int next = nextEventCycle();
+        if (next == Integer.MAX_VALUE || next <= currentCycle) {
+            return;
+        }
+        int n = next - currentCycle;
+
+        // Commit
+        if (rob.isEmpty()) {
+            stats.recordEmptyRobCycles(n);
+        } else {
+            int unit = rob.getUnit(rob.getHead());
+            stats.recordHeadStalls(unitTypes[unit], unitState(unit), n);
+        }
+
+        // Fetch and issue
+        if (instructionQueue.isFull() && source.fetch(fetchPc) != null) {
+            stats.recordFetchQueueFulls(n);
+        }
+        stats.recordFetchQueueOccupancy(instructionQueue.size(), n);
+        if (instructionQueue.isEmpty()) {
+            stats.recordFetchStalls(n);
+        } else {
+            InstructionQueue instruction = instructionQueue.get(0);
+            if (rob.isFull()) {
+                stats.recordRobFullStalls(n);
+            } else {
+                stats.recordStructuralStalls(UnitType.of(instruction.opcode), n);
+            }
+            if (listener != SimulationListener.NONE) {
+                String cause = issueStallCause(instruction);
+                for (int cycle = currentCycle; cycle < next; cycle++) {
+                    listener.onIssueStall(cycle, instruction, cause);
+                }
+            }
+        }
+
+        // Execute; idle means nothing has finished, and ready units are held up by a busy pool
+        sampleUnits(n);
+        for (FunctionalUnitType type : STATION_UNITS) {
+            stats.recordFunctionalUnitWaits(type, (long) scheduler.readyCount(type) * n);
+        }
+        for (int tag = scheduler.nextExecuting(0); tag != Scheduler.NONE; tag = scheduler.nextExecuting(tag + 1)) {
+            stationsByTag[tag].setCyclesLeft(stationsByTag[tag].getCyclesLeft() - n);
+        }
+        for (LoadBuffer lb : loadBuffers) {
+            if (lb.isExecuting()) {
+                lb.setRemainingCycles(lb.getRemainingCycles() - n);
+            } else if (!lb.isBusy()) {
+                continue;
+            } else if (!addressUnits().hasFree(currentCycle)) {
+                stats.recordFunctionalUnitWaits(FunctionalUnitType.AGU, n);
+            } else if (forwardingStore(lb) == null) {
+                caches.recordMshrStalls(n);  // Would have retried every cycle
+            }
+        }
+        for (StoreBuffer sb : storeBuffers) {
+            if (sb.isBusy() && sb.getQ() == Register.NO_TAG && !sb.isExecuting()) {
+                stats.recordFunctionalUnitWaits(FunctionalUnitType.AGU, n);
+            }
+        }
+
+        currentCycle = next;
+        stats.recordIdleCycles(n);
+    }
+
+    // The current cycle if a step now would commit, fetch, issue, start, forward or
+    // broadcast anything; otherwise the first cycle in which a countdown runs out or an
+    // MSHR frees for a blocked load (Integer.MAX_VALUE if nothing is counting down)
+    private int nextEventCycle() {
+        int now = currentCycle;
+        if (halted) {
+            return now;
+        }
+        if (!rob.isEmpty() && rob.isReady(rob.getHead())) {
+            return now;
+        }
+        if (!instructionQueue.isFull() && source.fetch(fetchPc) != null) {
+            return now;
+        }
+        if (!instructionQueue.isEmpty() && !rob.isFull()
+                && hasFreeUnit(UnitType.of(instructionQueue.get(0).opcode))) {
+            return now;
+        }
+
+        int next = Integer.MAX_VALUE;
+        for (LoadBuffer lb : loadsByTag) {
+            if (lb == null || !lb.isBusy()) {
+                continue;
+            }
+            if (lb.isResultReady()) {
+                return now;
+            }
+            if (lb.isExecuting()) {
+                // LoadBuffer.execute finishes on the call that takes the count to zero
+                next = Math.min(next, now + Math.max(lb.getRemainingCycles(), 1) - 1);
+                continue;
+            }
+            if (!addressUnits().hasFree(now)) {
+                next = Math.min(next, addressUnits().nextFree(now));
+                continue;
+            }
+            StoreBuffer store = forwardingStore(lb);
+            if (store == null) {
+                if (!caches.isReadBlocked(lb.getAddress(), now)) {
+                    return now;
+                }
+                next = Math.min(next, caches.nextMshrFree(now));
+            } else if (store.getQ() == Register.NO_TAG) {
+                return now;
+            }
+            // Otherwise it waits for the store's value, which only a broadcast brings
+        }
+        if (scheduler.hasFinished() || scheduler.hasWoken()) {
+            return now;
+        }
+        for (FunctionalUnitType type : STATION_UNITS) {
+            if (scheduler.readyCount(type) > 0) {
+                FunctionalUnitPool pool = functionalUnits[type.ordinal()];
+                if (pool.hasFree(now)) {
+                    return now;
+                }
+                // A non-pipelined unit frees when its operation finishes, which is counted below
+                next = Math.min(next, pool.nextFree(now));
+            }
+        }
+        for (int tag = scheduler.nextExecuting(0); tag != Scheduler.NONE; tag = scheduler.nextExecuting(tag + 1)) {
+            // ReservationStation.execute finishes on the call after the count reaches zero
+            next = Math.min(next, now + stationsByTag[tag].getCyclesLeft());
+        }
+        for (StoreBuffer sb : storeBuffers) {
+            if (sb.isBusy() && sb.getQ() == Register.NO_TAG && !sb.isExecuting()) {
+                if (addressUnits().hasFree(now)) {
+                    return now;
+                }
+                next = Math.min(next, addressUnits().nextFree(now));
+            }
+        }
+        return next;
+    }
+
+    private boolean hasFreeUnit(UnitType type) {
+        switch (type) {
+            case ADD_SUB:
+                return scheduler.firstFree(addSubTags) != Scheduler.NONE;
+            case MUL_DIV:
+                return scheduler.firstFree(mulDivTags) != Scheduler.NONE;
+            case LOAD:
+                for (LoadBuffer lb : loadBuffers) {
+                    if (!lb.isBusy()) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                for (StoreBuffer sb : storeBuffers) {
+                    if (!sb.isBusy()) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+    // Adds n cycles of every station and buffer in its current state to the stats.
+    // Station states are counted from the scheduler's masks.
+    private void sampleUnits(int n) {
+        sampleStations(UnitType.ADD_SUB, addSubTags, addSubRS.size(), n);
+        sampleStations(UnitType.MUL_DIV, mulDivTags, mulDivRS.size(), n);
+        for (LoadBuffer lb : loadBuffers) {
+            stats.recordUnitCycles(UnitType.LOAD, unitState(lb.getTag()), n);
+        }
+        for (StoreBuffer sb : storeBuffers) {
+            stats.recordUnitCycles(UnitType.STORE, unitState(sb.getTag()), n);
+        }
+    }
+
+    private void sampleStations(UnitType type, long[] tags, int stations, int n) {
+        int busy = scheduler.busyCount(tags);
+        int ready = scheduler.readyCount(tags);
+        int executing = scheduler.executingCount(tags);
+        int finished = scheduler.finishedCount(tags);
+        stats.recordUnitCycles(type, UnitState.IDLE, (long) (stations - busy) * n);
+        stats.recordUnitCycles(type, UnitState.RAW_WAIT, (long) (busy - ready - executing - finished) * n);
+        stats.recordUnitCycles(type, UnitState.UNIT_WAIT, (long) ready * n);
+        stats.recordUnitCycles(type, UnitState.EXECUTING, (long) executing * n);
+        stats.recordUnitCycles(type, UnitState.CDB_WAIT, (long) finished * n);
+    }
+
+    // Every instruction has committed, or a precise exception stopped the machine
+    public boolean isComplete() {
+        return halted || (instructionQueue.isEmpty() && rob.isEmpty() && source.fetch(fetchPc) == null);
+    }
+
+    // Fills the queue along the predicted path, up to one issue group per cycle. A
+    // predicted-taken branch ends the group, since the next instruction is elsewhere.
+    // A trace already follows the branches, so fetch just walks it in order.
+    private void fetch() {
+        for (int i = 0; i < config.getIssueWidth(); i++) {
+            InstructionQueue instruction = source.fetch(fetchPc);
+            if (instruction == null) {
+                break;
+            }
+            if (instructionQueue.isFull()) {
+                stats.recordFetchQueueFull();
+                break;
+            }
+            if (!instruction.opcode.isBranch()) {
+                instructionQueue.add(instruction);
+                fetchPc++;
+                continue;
+            }
+
+            InstructionQueue branch = instruction.fetchCopy();
+            branch.predictorHistory = predictor.getHistory();
+            branch.predictedTaken = predictor.predict(branch.pc, branch.target);
+            branch.fetchCycle = currentCycle;
+            branch.fetchIndex = fetchPc;
+            instructionQueue.add(branch);
+            if (source.isTrace()) {
+                fetchPc++;
+            } else {
+                fetchPc = branch.predictedTaken ? branch.target : branch.pc + 1;
+            }
+            if (branch.predictedTaken) {
+                break;
+            }
+        }
+    }
+
+    // Retires finished instructions from the ROB head in program order. Registers and
+    // memory only change here, so the architectural state is always precise.
+    private void commit() {
+        // Every cycle is charged to committing, an empty ROB, or whatever holds the head
+        if (rob.isEmpty()) {
+            stats.recordEmptyRobCycle();
+        } else if (!rob.isReady(rob.getHead())) {
+            int unit = rob.getUnit(rob.getHead());
+            stats.recordHeadStall(unitTypes[unit], unitState(unit));
+        } else {
+            stats.recordCommitCycle();
+        }
+
+        for (int i = 0; i < config.getCommitWidth() && !rob.isEmpty(); i++) {
+            int tag = rob.getHead();
+            if (!rob.isReady(tag)) {
+                return;
+            }
+            InstructionQueue instruction = rob.getInstruction(tag);
+
+            if (rob.getFault(tag) != ReorderBuffer.NO_FAULT) {
+                raiseException(tag, instruction);
+                return;
+            }
+
+            if (instruction.opcode.isBranch()) {
+                boolean taken = rob.getValue(tag) != 0;
+                predictor.update(instruction.pc, instruction.predictorHistory, taken);
+                stats.recordBranch(instruction.mispredicted);
+                if (taken && instruction.isLoopEnd && !source.isTrace()) {
+                    program.get(instruction.pc).loopIterations++;
+                }
+            } else if (instruction.opcode == Opcode.S_D) {
+                StoreBuffer sb = storesByTag[rob.getUnit(tag)];
+                caches.write(sb.getAddress());
+                memory.write(sb.getAddress(), sb.getValue());
+                sb.reset();
+            } else {
+                int dest = rob.getDestRegister(tag);
+                if (dest != InstructionQueue.NO_REGISTER) {
+                    registers[dest].setValue(rob.getValue(tag));
+                    // A younger instruction may have renamed the register since
+                    if (registers[dest].getQi() == tag) {
+                        registers[dest].setQi(Register.NO_TAG);
+                    }
+                }
+            }
+
+            int row = timingRow(tag);
+            if (row != TimingTable.NONE) {
+                timing.setCommit(row, currentCycle);
+            }
+            rob.retireHead();
+            source.release(++retired);
+            stats.recordCommit();
+            listener.onCommit(currentCycle, instruction);
+        }
+    }
+
+    // The faulting instruction and everything younger are discarded and the machine halts
+    // with the registers and memory exactly as they were after the previous instruction
+    private void raiseException(int tag, InstructionQueue instruction) {
+        String description;
+        switch (rob.getFault(tag)) {
+            case ReorderBuffer.FAULT_DIVIDE_BY_ZERO:
+                description = "Division by zero in " + instruction.instruction;
+                break;
+            default:
+                description = "Fault in " + instruction.instruction;
+                break;
+        }
+        squashAfter(Register.NO_TAG);
+        instructionQueue.clear();
+        halt(instruction, description);
+    }
+
+    private void halt(InstructionQueue instruction, String description) {
+        exception = description;
+        halted = true;
+        stats.recordException();
+        listener.onException(currentCycle, instruction, exception);
+    }
+
+    // Discards every ROB entry younger than keepTag (all of them for Register.NO_TAG),
+    // frees the units they occupied and points the registers back at surviving producers
+    private void squashAfter(int keepTag) {
+        while (!rob.isEmpty() && rob.getTail() != keepTag) {
+            int tag = rob.getTail();
+            int row = timingRow(tag);
+            if (row != TimingTable.NONE) {
+                timing.truncate(row);
+            }
+            releaseUnit(rob.getUnit(tag), tag);
+            wakeup.clear(tag);
+            rob.removeTail();
+        }
+        rebuildRegisterStatus();
+    }
+
+    private void releaseUnit(int unit, int robTag) {
+        if (stationsByTag[unit] != null && stationsByTag[unit].getRobTag() == robTag) {
+            ReservationStation rs = stationsByTag[unit];
+            if (rs.isExecuting()) {
+                functionalUnits[FunctionalUnitType.of(rs.getOp()).ordinal()].release(rs.getFunctionalUnit(), currentCycle);
+            }
+            scheduler.remove(unit);
+            rs.reset();
+        } else if (loadsByTag[unit] != null && loadsByTag[unit].getRobTag() == robTag) {
+            loadsByTag[unit].reset();
+        } else if (storesByTag[unit] != null && storesByTag[unit].getRobTag() == robTag) {
+            storesByTag[unit].reset();
+        }
+    }
+
+    // Register status is derived from the ROB: the youngest surviving writer of each register
+    private void rebuildRegisterStatus() {
+        for (Register register : registers) {
+            register.setQi(Register.NO_TAG);
+        }
+        for (int i = 0; i < rob.size(); i++) {
+            int tag = rob.tagAt(i);
+            int dest = rob.getDestRegister(tag);
+            if (dest != InstructionQueue.NO_REGISTER) {
+                registers[dest].setQi(tag);
+            }
+        }
+    }
+
+    private boolean tryIssueNextInstruction() {
+        if (instructionQueue.isEmpty()) {
+            stats.recordFetchStall();
+            return false;
+        }
+
+        InstructionQueue instruction = instructionQueue.get(0);
+        if (rob.isFull()) {
+            stats.recordRobFullStall();
+            if (listener != SimulationListener.NONE) {
+                listener.onIssueStall(currentCycle, instruction, issueStallCause(instruction));
+            }
+            return false;
+        }
+        boolean issued = false;
+
+        switch (instruction.opcode) {
+            case L_D:
+                issued = issueLoadInstruction(instruction);
+                break;
+            case S_D:
+                issued = issueStoreInstruction(instruction);
+                break;
+            case ADD_D:
+            case SUB_D:
+            case ADD_S:
+            case SUB_S:
+                issued = issueAddSubInstruction(instruction);
+                break;
+            case MUL_D:
+            case DIV_D:
+            case MUL_S:
+            case DIV_S:
+                issued = issueMulDivInstruction(instruction);
+                break;
+            case DADDI:
+            case DSUBI:
+                issued = issueIntegerInstruction(instruction);
+                break;
+            case BEQ:
+            case BNE:
+                issued = issueBranchInstruction(instruction);
+                break;
+        }
+
+        if (issued) {
+            instructionQueue.removeFirst();
+        } else {
+            stats.recordStructuralStall(UnitType.of(instruction.opcode));
+            if (listener != SimulationListener.NONE) {
+                listener.onIssueStall(currentCycle, instruction, issueStallCause(instruction));
+            }
+        }
+        return issued;
+    }
+
+    // Why the instruction at the head of the queue cannot issue, in the stats' terms. It
+    // builds a string, so callers only ask when a listener is attached
+    private String issueStallCause(InstructionQueue instruction) {
+        return rob.isFull() ? "ROB full" : "no free " + UnitType.of(instruction.opcode);
+    }
+
+    private boolean issueLoadInstruction(InstructionQueue instruction) {
+        for (LoadBuffer lb : loadBuffers) {
+            if (!lb.isBusy()) {
+                lb.setBusy(true);
+                lb.setSeq(nextSeq++);
+                lb.setAddress(instruction.immediate);
+                lb.setRobTag(allocateRob(instruction, instruction.dest, lb.getTag()));
+                renameDestination(instruction.dest, lb.getRobTag());
+                listener.onIssue(currentCycle, instruction, lb.getName());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean issueStoreInstruction(InstructionQueue instruction) {
+        for (StoreBuffer sb : storeBuffers) {
+            if (!sb.isBusy()) {
+                sb.setBusy(true);
+                sb.setAddress(instruction.immediate);
+                Register srcReg = registers[instruction.src1];
+                int producer = srcReg.getQi();
+                if (producer != Register.NO_TAG && !rob.isReady(producer)) {
+                    sb.setQ(producer);
+                    wakeup.addConsumer(producer, sb.getTag(), WakeupTable.SLOT_STORE);
+                } else {
+                    sb.setValue(producer != Register.NO_TAG ? rob.getValue(producer) : srcReg.getValue());
+                }
+                sb.setRobTag(allocateRob(instruction, InstructionQueue.NO_REGISTER, sb.getTag()));
+                listener.onIssue(currentCycle, instruction, sb.getName());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean issueAddSubInstruction(InstructionQueue instruction) {
+        return issueToStation(addSubTags, instruction);
+    }
+
+    private boolean issueMulDivInstruction(InstructionQueue instruction) {
+        return issueToStation(mulDivTags, instruction);
+    }
+
+    // Two-register arithmetic: Fd <- Fj op Fk
+    private boolean issueToStation(long[] stations, InstructionQueue instruction) {
+        ReservationStation rs = freeStation(stations);
+        if (rs == null) {
+            return false;
+        }
+        rs.setBusy(true);
+        rs.setSeq(nextSeq++);
+        rs.setOp(instruction.opcode);
+
+        // Sources are read before the destination is renamed so Fd may also be a source
+        readOperand(rs, WakeupTable.SLOT_J, instruction.src1);
+        readOperand(rs, WakeupTable.SLOT_K, instruction.src2);
+
+        // Set the destination register's Qi to this instruction's ROB entry
+        rs.setRobTag(allocateRob(instruction, instruction.dest, rs.getTag()));
+        renameDestination(instruction.dest, rs.getRobTag());
+
+        schedule(rs);
+        listener.onIssue(currentCycle, instruction, rs.getName());
+        return true;
+    }
+
+    private boolean issueIntegerInstruction(InstructionQueue instruction) {
+        // Integer operations use the Add/Sub reservation stations
+        ReservationStation rs = freeStation(addSubTags);
+        if (rs == null) {
+            return false;
+        }
+        rs.setBusy(true);
+        rs.setSeq(nextSeq++);
+        rs.setOp(instruction.opcode);
+        readOperand(rs, WakeupTable.SLOT_J, instruction.src1);
+        rs.setVk(instruction.immediate);  // For immediate value
+        rs.setRobTag(allocateRob(instruction, instruction.dest, rs.getTag()));
+        renameDestination(instruction.dest, rs.getRobTag());
+
+        schedule(rs);
+        listener.onIssue(currentCycle, instruction, rs.getName());
+        return true;
+    }
+
+    private boolean issueBranchInstruction(InstructionQueue instruction) {
+        // Branch operations use the Add/Sub reservation stations for comparison
+        ReservationStation rs = freeStation(addSubTags);
+        if (rs == null) {
+            return false;
+        }
+        rs.setBusy(true);
+        rs.setSeq(nextSeq++);
+        rs.setOp(instruction.opcode);
+
+        readOperand(rs, WakeupTable.SLOT_J, instruction.src1);
+        readOperand(rs, WakeupTable.SLOT_K, instruction.src2);
+        rs.setRobTag(allocateRob(instruction, InstructionQueue.NO_REGISTER, rs.getTag()));
+
+        schedule(rs);
+        listener.onIssue(currentCycle, instruction, rs.getName());
+        return true;
+    }
+
+    // Lowest-numbered free station among the given tags, or null
+    private ReservationStation freeStation(long[] stations) {
+        int tag = scheduler.firstFree(stations);
+        return tag == Scheduler.NONE ? null : stationsByTag[tag];
+    }
+
+    // A newly issued station joins the select logic, ready at once if no operand is pending
+    private void schedule(ReservationStation rs) {
+        scheduler.insert(rs.getTag());
+        if (rs.operandsReady()) {
+            scheduler.setReady(rs.getTag(), FunctionalUnitType.of(rs.getOp()));
+        }
+    }
+
+    // Captures a source operand's value, or its producer's ROB tag and a wakeup registration.
+    // A producer that has broadcast but not yet committed supplies its value from the ROB.
+    private void readOperand(ReservationStation rs, int slot, int register) {
+        Register src = registers[register];
+        int producer = src.getQi();
+        if (producer != Register.NO_TAG && rob.isReady(producer)) {
+            if (slot == WakeupTable.SLOT_J) {
+                rs.setVj(rob.getValue(producer));
+            } else {
+                rs.setVk(rob.getValue(producer));
+            }
+        } else if (producer != Register.NO_TAG) {
+            if (slot == WakeupTable.SLOT_J) {
+                rs.setQj(producer);
+            } else {
+                rs.setQk(producer);
+            }
+            wakeup.addConsumer(producer, rs.getTag(), slot);
+        } else if (slot == WakeupTable.SLOT_J) {
+            rs.setVj(src.getValue());
+        } else {
+            rs.setVk(src.getValue());
+        }
+    }
+
+    // Every issue path allocates its ROB entry here, which also opens its timing row
+    private int allocateRob(InstructionQueue instruction, int destRegister, int unit) {
+        int tag = rob.allocate(instruction, destRegister, unit);
+        if (timing != null) {
+            timingRows[tag] = timing.add(instruction, currentCycle);
+        }
+        return tag;
+    }
+
+    // Entries restored from a checkpoint have no timing row
+    private int timingRow(int robTag) {
+        return timing != null ? timingRows[robTag] : TimingTable.NONE;
+    }
+
+    private void timeExecStart(int robTag) {
+        int row = timingRow(robTag);
+        if (row != TimingTable.NONE) {
+            timing.setExecStart(row, currentCycle);
+        }
+    }
+
+    private void timeExecEnd(int robTag) {
+        int row = timingRow(robTag);
+        if (row != TimingTable.NONE) {
+            timing.setExecEnd(row, currentCycle);
+        }
+    }
+
+    // What a station or buffer is doing, for stall accounting
+    private UnitState unitState(int unit) {
+        ReservationStation rs = stationsByTag[unit];
+        if (rs != null) {
+            if (!rs.isBusy()) {
+                return UnitState.IDLE;
+            }
+            if (rs.isResultReady()) {
+                return UnitState.CDB_WAIT;
+            }
+            // A station woken by this cycle's broadcast is still taking in its operand
+            if (!rs.operandsReady() || scheduler.isWoken(unit)) {
+                return UnitState.RAW_WAIT;
+            }
+            return rs.isExecuting() ? UnitState.EXECUTING : UnitState.UNIT_WAIT;
+        }
+        LoadBuffer lb = loadsByTag[unit];
+        if (lb != null) {
+            if (!lb.isBusy()) {
+                return UnitState.IDLE;
+            }
+            if (lb.isResultReady()) {
+                return UnitState.CDB_WAIT;
+            }
+            if (lb.isExecuting()) {
+                return lb.isCacheMiss() ? UnitState.MEMORY_WAIT : UnitState.EXECUTING;
+            }
+            // Not started: no address unit, every MSHR busy, or a forwarding store has no value yet
+            if (lb.isUnitStalled()) {
+                return UnitState.UNIT_WAIT;
+            }
+            return lb.isMshrStalled() ? UnitState.MEMORY_WAIT : UnitState.RAW_WAIT;
+        }
+        StoreBuffer sb = storesByTag[unit];
+        if (!sb.isBusy()) {
+            return UnitState.IDLE;
+        }
+        if (sb.getQ() != Register.NO_TAG) {
+            return UnitState.RAW_WAIT;
+        }
+        return sb.isExecuting() ? UnitState.COMMIT_WAIT : UnitState.UNIT_WAIT;
+    }
+
+    private void renameDestination(int register, int robTag) {
+        registers[register].setQi(robTag);
+    }
+
+    private void executeReservationStations() {
+        // Execute load buffers first since others may depend on them
+        for (LoadBuffer lb : loadBuffers) {
+            if (!lb.isBusy()) {
+                continue;
+            }
+            boolean wasExecuting = lb.isExecuting();
+            if (lb.isExecuting() || lb.isResultReady()) {
+                lb.execute(memory, caches, listener, currentCycle);
+            } else if (!addressUnits().hasFree(currentCycle)) {
+                lb.setUnitStalled(true);
+                stats.recordFunctionalUnitWait(FunctionalUnitType.AGU);
+            } else {
+                lb.setUnitStalled(false);
+                // Store addresses are known at issue, so only a matching older store matters
+                StoreBuffer source = forwardingStore(lb);
+                if (source == null) {
+                    lb.execute(memory, caches, listener, currentCycle);
+                    if (lb.isExecuting()) {
+                        stats.recordCacheLoad();
+                    }
+                } else if (source.getQ() == Register.NO_TAG) {
+                    lb.forward(source.getValue(), config.getCache(0).getHitLatency(), listener, currentCycle);
+                    stats.recordForwardedLoad();
+                    listener.onStoreForward(currentCycle, lb.getName(), source.getName(), lb.getAddress());
+                }
+                // Otherwise the store is still waiting for its value, and so is the load
+            }
+            if (!wasExecuting && lb.isExecuting()) {
+                useAddressUnit();
+                timeExecStart(lb.getRobTag());
+            } else if (wasExecuting && lb.isResultReady()) {
+                timeExecEnd(lb.getRobTag());
+            }
+        }
+
+        // Start ready stations on free functional units, then count down every running one.
+        // Stations woken by last cycle's broadcasts compete with the rest from this cycle.
+        for (int tag = scheduler.nextWoken(0); tag != Scheduler.NONE; tag = scheduler.nextWoken(tag + 1)) {
+            scheduler.setReady(tag, FunctionalUnitType.of(stationsByTag[tag].getOp()));
+        }
+        scheduler.clearWoken();
+        for (FunctionalUnitType type : STATION_UNITS) {
+            dispatch(type);
+            stats.recordFunctionalUnitWaits(type, scheduler.readyCount(type));
+        }
+        for (int tag = scheduler.nextExecuting(0); tag != Scheduler.NONE; tag = scheduler.nextExecuting(tag + 1)) {
+            ReservationStation rs = stationsByTag[tag];
+            rs.execute();
+            if (!rs.isExecuting()) {
+                finishExecution(rs);
+            }
+        }
+
+        // A store is done once it has its value; memory is written when it commits
+        for (StoreBuffer sb : storeBuffers) {
+            if (sb.isBusy() && sb.getQ() == Register.NO_TAG) {  // Make sure we have the value to store
+                if (!sb.isExecuting()) {
+                    if (!addressUnits().hasFree(currentCycle)) {
+                        stats.recordFunctionalUnitWait(FunctionalUnitType.AGU);
+                        continue;
+                    }
+                    useAddressUnit();
+                    sb.setExecuting(true);
+                    listener.onExecStart(currentCycle, sb.getName());
+                    rob.setResult(sb.getRobTag(), sb.getValue(), ReorderBuffer.NO_FAULT);
+                    listener.onExecDone(currentCycle, sb.getName(), sb.getValue());
+                    timeExecStart(sb.getRobTag());
+                    timeExecEnd(sb.getRobTag());
+                }
+            }
+        }
+    }
+
+    // Starts ready stations of the class on free units, in the order the select policy
+    // gives; the rest wait for a later cycle
+    private void dispatch(FunctionalUnitType type) {
+        FunctionalUnitPool pool = functionalUnits[type.ordinal()];
+        for (int tag = scheduler.select(type); tag != Scheduler.NONE; tag = scheduler.select(type)) {
+            int unit = pool.acquire(currentCycle);
+            if (unit == FunctionalUnitPool.NO_UNIT) {
+                return;
+            }
+            startExecution(stationsByTag[tag], type, unit);
+        }
+    }
+
+    private void startExecution(ReservationStation rs, FunctionalUnitType type, int unit) {
+        scheduler.start(rs.getTag(), type);
+        rs.setFunctionalUnit(unit);
+        rs.setExecuting(true);
+        rs.setCyclesLeft(config.getLatency(rs.getOp()));
+        listener.onExecStart(currentCycle, rs.getName());
+        timeExecStart(rs.getRobTag());
+    }
+
+    private void finishExecution(ReservationStation rs) {
+        scheduler.finish(rs.getTag());
+        functionalUnits[FunctionalUnitType.of(rs.getOp()).ordinal()].release(rs.getFunctionalUnit(), currentCycle);
+        rs.setFunctionalUnit(FunctionalUnitPool.NO_UNIT);
+        listener.onExecDone(currentCycle, rs.getName(), rs.getResult());
+        timeExecEnd(rs.getRobTag());
+    }
+
+    private FunctionalUnitPool addressUnits() {
+        return functionalUnits[FunctionalUnitType.AGU.ordinal()];
+    }
+
+    // Address generation takes one cycle, so a non-pipelined unit is free again the next
+    private void useAddressUnit() {
+        FunctionalUnitPool agus = addressUnits();
+        agus.release(agus.acquire(currentCycle), currentCycle);
+    }
+
+    // Stores only reach memory at commit. The youngest store older than the load to the
+    // same address supplies its value; loads that match no store go to the cache.
+    private StoreBuffer forwardingStore(LoadBuffer lb) {
+        int age = rob.ageOf(lb.getRobTag());
+        StoreBuffer youngest = null;
+        int youngestAge = -1;
+        for (StoreBuffer sb : storeBuffers) {
+            if (sb.isBusy() && sb.getAddress() == lb.getAddress()) {
+                int storeAge = rob.ageOf(sb.getRobTag());
+                if (storeAge < age && storeAge > youngestAge) {
+                    youngest = sb;
+                    youngestAge = storeAge;
+                }
+            }
+        }
+        return youngest;
+    }
+
+    private void performWriteBack() {
+        // Every finished load and station competes for the CDBs
+        int requests = 0;
+        for (LoadBuffer lb : loadBuffers) {
+            if (lb.isBusy() && lb.isResultReady()) {
+                cdbRequests[requests++] = lb.getTag();
+            }
+        }
+        for (int tag = scheduler.nextFinished(0); tag != Scheduler.NONE; tag = scheduler.nextFinished(tag + 1)) {
+            cdbRequests[requests++] = tag;
+        }
+
+        // Oldest instructions win the buses; the rest retry next cycle
+        mispredictedBranch = Register.NO_TAG;
+        int granted = Math.min(requests, config.getCdbCount());
+        for (int i = 0; i < granted; i++) {
+            int oldest = i;
+            for (int j = i + 1; j < requests; j++) {
+                if (seqOf(cdbRequests[j]) < seqOf(cdbRequests[oldest])) {
+                    oldest = j;
+                }
+            }
+            int tag = cdbRequests[oldest];
+            cdbRequests[oldest] = cdbRequests[i];
+            cdbRequests[i] = tag;
+            broadcast(tag);
+        }
+        stats.recordBroadcasts(granted, requests - granted);
+
+        if (mispredictedBranch != Register.NO_TAG) {
+            recoverFromMispredict(mispredictedBranch);
+        }
+    }
+
+    // Younger instructions were fetched down the wrong path: discard them and everything
+    // still waiting to issue, then fetch again from where the branch really goes
+    private void recoverFromMispredict(int tag) {
+        InstructionQueue branch = rob.getInstruction(tag);
+        boolean taken = !branch.predictedTaken;
+        int squashed = rob.size() - rob.ageOf(tag) - 1 + instructionQueue.size();
+        squashAfter(tag);
+        instructionQueue.clear();
+        if (source.isTrace()) {
+            fetchPc = branch.fetchIndex + 1;
+        } else {
+            fetchPc = taken ? branch.target : branch.pc + 1;
+        }
+        predictor.recover(branch.predictorHistory, taken);
+        stats.recordFlush(squashed, currentCycle - branch.fetchCycle + 1);
+        listener.onMispredict(currentCycle, branch, squashed);
+    }
+
+    // Compares a resolved branch with its prediction; the oldest wrong one this cycle is recovered
+    private void resolveBranch(int robTag, boolean taken) {
+        InstructionQueue branch = rob.getInstruction(robTag);
+        if (source.isTrace()) {
+            // Traced branches have no target address, only a direction
+            if (branch.predictedTaken == taken) {
+                return;
+            }
+        } else {
+            int predictedNext = branch.predictedTaken ? branch.target : branch.pc + 1;
+            int actualNext = taken ? branch.target : branch.pc + 1;
+            if (predictedNext == actualNext) {
+                return;
+            }
+        }
+        branch.mispredicted = true;
+        if (mispredictedBranch == Register.NO_TAG || rob.ageOf(robTag) < rob.ageOf(mispredictedBranch)) {
+            mispredictedBranch = robTag;
+        }
+    }
+
+    private int seqOf(int tag) {
+        return stationsByTag[tag] != null ? stationsByTag[tag].getSeq() : loadsByTag[tag].getSeq();
+    }
+
+    // Puts a finished unit's result on a CDB and releases the unit
+    private void broadcast(int tag) {
+        ReservationStation rs = stationsByTag[tag];
+        if (rs != null) {
+            int fault = rs.hasDivideByZero() && config.isTrapDivideByZero()
+                    ? ReorderBuffer.FAULT_DIVIDE_BY_ZERO : ReorderBuffer.NO_FAULT;
+            writeResult(tag, rs.getRobTag(), rs.getResult(), fault);
+            if (rs.getOp().isBranch()) {
+                resolveBranch(rs.getRobTag(), rs.getResult() != 0);
+            }
+            scheduler.remove(tag);
+            rs.reset();
+        } else {
+            LoadBuffer lb = loadsByTag[tag];
+            writeResult(tag, lb.getRobTag(), lb.getValue(), ReorderBuffer.NO_FAULT);
+            lb.reset();
+        }
+    }
+
+    // CDB broadcast: the result goes into the producer's ROB entry and to the consumers
+    // that registered on it at issue time; registers are only written at commit
+    private void writeResult(int unit, int source, double result, int fault) {
+        listener.onBroadcast(currentCycle, unitNames[unit], result);
+        rob.setResult(source, result, fault);
+        int row = timingRow(source);
+        if (row != TimingTable.NONE) {
+            timing.setWriteback(row, currentCycle);
+        }
+
+        for (int i = 0, n = wakeup.getConsumerCount(source); i < n; i++) {
+            int consumer = wakeup.getConsumer(source, i);
+            int tag = WakeupTable.consumerTag(consumer);
+            int slot = WakeupTable.consumerSlot(consumer);
+
+            if (slot == WakeupTable.SLOT_STORE) {
+                StoreBuffer sb = storesByTag[tag];
+                if (sb.getQ() == source) {
+                    sb.setQ(Register.NO_TAG);  // Clear the dependency
+                    sb.setValue(result);
+                }
+                continue;
+            }
+
+            ReservationStation rs = stationsByTag[tag];
+            if (slot == WakeupTable.SLOT_J && rs.getQj() == source) {
+                rs.setQj(Register.NO_TAG);  // Clear the dependency
+                rs.setVj(result);
+            } else if (slot == WakeupTable.SLOT_K && rs.getQk() == source) {
+                rs.setQk(Register.NO_TAG);  // Clear the dependency
+                rs.setVk(result);
+            }
+
+            // With all its operands the station can be selected from the next cycle, so
+            // a unit is held for exactly the operation's latency
+            if (rs.isBusy() && !rs.isExecuting() && !rs.isResultReady() && rs.operandsReady()) {
+                scheduler.wake(tag);
+            }
+        }
+        wakeup.clear(source);
+    }
+
+    // Returns the machine to cycle 0 with an empty queue and freshly initialized memory
+    public void reset() {
+        currentCycle = 0;
+        nextSeq = 0;
+        halted = false;
+        exception = null;
+        fetchPc = 0;
+        retired = 0;
+        if (timing != null) {
+            timing.clear();
+        }
+        Arrays.fill(timingRows, TimingTable.NONE);
+        predictor = BranchPredictor.create(config);
+        stats = new SimulationStats(config.getIssueWidth(), config.getCdbCount());
+        memory.reset();
+        if (config.getMemoryImage() != null) {
+            try {
+                memory.loadImage(Paths.get(config.getMemoryImage()));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not load memory image: " + e.getMessage());
+            }
+        }
+
+        caches = new MemoryHierarchy(config);
+
+        // Reset registers
+        registerFile.reset();
+
+        // Reset stations and buffers
+        for (ReservationStation rs : addSubRS) rs.reset();
+        for (ReservationStation rs : mulDivRS) rs.reset();
+        for (LoadBuffer lb : loadBuffers) lb.reset();
+        for (StoreBuffer sb : storeBuffers) sb.reset();
+        for (FunctionalUnitPool pool : functionalUnits) pool.clear();
+        scheduler.clear();
+        rob.clear();
+        wakeup.clearAll();
+
+        // Clear the program, any trace and the instruction queue
+        source.close();
+        source = program;
+        program.clear();
+        instructionQueue.clear();
+    }
+
+    // Writes the complete machine state to a compressed binary file: program or trace
+    // position, in-flight instructions, registers, stations, buffers, predictor, caches,
+    // memory and statistics. The listener is not part of the state.
+    public void saveCheckpoint(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file))))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            for (long value : checkpointShape().values()) {
+                out.writeLong(value);
+            }
+
+            out.writeInt(currentCycle);
+            out.writeInt(nextSeq);
+            out.writeBoolean(halted);
+            out.writeUTF(exception != null ? exception : "");
+            out.writeLong(fetchPc);
+            out.writeLong(retired);
+            out.writeBoolean(source.isTrace());
+            if (source.isTrace()) {
+                out.writeUTF(((TraceSource) source).getFile().toAbsolutePath().toString());
+            } else {
+                saveProgram(out);
+            }
+
+            // In-flight instructions oldest first: the ROB, then the fetch queue
+            out.writeInt(rob.tagAt(0));
+            out.writeInt(rob.size());
+            for (int i = 0; i < rob.size(); i++) {
+                int tag = rob.tagAt(i);
+                saveInFlight(out, rob.getInstruction(tag));
+                out.writeInt(rob.getDestRegister(tag));
+                out.writeInt(rob.getUnit(tag));
+                out.writeBoolean(rob.isReady(tag));
+                out.writeDouble(rob.getValue(tag));
+                out.writeInt(rob.getFault(tag));
+            }
+            out.writeInt(instructionQueue.size());
+            for (InstructionQueue instruction : instructionQueue) {
+                saveInFlight(out, instruction);
+            }
+
+            for (Register register : registers) {
+                out.writeDouble(register.getValue());
+                out.writeInt(register.getQi());
+            }
+            for (ReservationStation rs : addSubRS) rs.save(out);
+            for (ReservationStation rs : mulDivRS) rs.save(out);
+            for (LoadBuffer lb : loadBuffers) lb.save(out);
+            for (StoreBuffer sb : storeBuffers) sb.save(out);
+            for (FunctionalUnitPool pool : functionalUnits) pool.save(out);
+            List<Integer> woken = new ArrayList<>();
+            for (int tag = scheduler.nextWoken(0); tag != Scheduler.NONE; tag = scheduler.nextWoken(tag + 1)) {
+                woken.add(tag);
+            }
+            out.writeInt(woken.size());
+            for (int tag : woken) {
+                out.writeInt(tag);
+            }
+            wakeup.save(out);
+            predictor.save(out);
+            caches.save(out);
+            memory.save(out);
+            stats.save(out);
+        }
+    }
+
+    // Puts the machine back in the state saved by saveCheckpoint(). The current config
+    // must have the same structure as the one saved (see checkpointShape); timing
+    // parameters such as latencies may differ, so one checkpoint can be resumed under
+    // several configurations. A trace checkpoint reopens the trace file it names.
+    public void restoreCheckpoint(Path file) throws IOException {
+        reset();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException(file + " is not a version " + CHECKPOINT_VERSION + " checkpoint");
+            }
+            for (Map.Entry<String, Long> entry : checkpointShape().entrySet()) {
+                long saved = in.readLong();
+                if (saved != entry.getValue()) {
+                    throw new IllegalArgumentException("Checkpoint was taken with " + entry.getKey() + "="
+                            + saved + ", this machine has " + entry.getValue());
+                }
+            }
+
+            currentCycle = in.readInt();
+            nextSeq = in.readInt();
+            halted = in.readBoolean();
+            exception = in.readUTF();
+            if (exception.isEmpty()) {
+                exception = null;
+            }
+            long savedFetchPc = in.readLong();
+            retired = in.readLong();
+            if (in.readBoolean()) {
+                loadTrace(Paths.get(in.readUTF()));
+                source.release(retired);
+            } else {
+                restoreProgram(in);
+            }
+
+            long index = retired;  // Trace record of the next in-flight instruction
+            rob.clear(in.readInt());
+            for (int i = 0, n = in.readInt(); i < n; i++) {
+                InstructionQueue instruction = restoreInFlight(in, index++);
+                int tag = rob.allocate(instruction, in.readInt(), in.readInt());
+                boolean ready = in.readBoolean();
+                double value = in.readDouble();
+                int fault = in.readInt();
+                if (ready) {
+                    rob.setResult(tag, value, fault);
+                }
+            }
+            for (int i = 0, n = in.readInt(); i < n; i++) {
+                instructionQueue.add(restoreInFlight(in, index++));
+            }
+            fetchPc = savedFetchPc;
+
+            for (Register register : registers) {
+                register.setValue(in.readDouble());
+                register.setQi(in.readInt());
+            }
+            for (ReservationStation rs : addSubRS) rs.restore(in);
+            for (ReservationStation rs : mulDivRS) rs.restore(in);
+            for (LoadBuffer lb : loadBuffers) lb.restore(in);
+            for (StoreBuffer sb : storeBuffers) sb.restore(in);
+            for (FunctionalUnitPool pool : functionalUnits) pool.restore(in);
+            int[] woken = new int[in.readInt()];
+            for (int i = 0; i < woken.length; i++) {
+                woken[i] = in.readInt();
+            }
+            rebuildScheduler(woken);
+            wakeup.restore(in);
+            predictor.restore(in);
+            caches.restore(in);
+            memory.restore(in);
+            stats.restore(in);
+        } catch (IOException | RuntimeException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    // The scheduler mirrors the stations, so it is rebuilt rather than saved; inserting
+    // in issue order recreates the age matrix. Which stations were woken in the last
+    // cycle is not in the stations, so that list comes from the checkpoint.
+    private void rebuildScheduler(int[] woken) throws IOException {
+        List<ReservationStation> busy = new ArrayList<>();
+        for (ReservationStation rs : stationsByTag) {
+            if (rs != null && rs.isBusy()) {
+                busy.add(rs);
+            }
+        }
+        busy.sort(Comparator.comparingInt(ReservationStation::getSeq));
+        scheduler.clear();
+        for (ReservationStation rs : busy) {
+            scheduler.insert(rs.getTag());
+        }
+        for (int tag : woken) {
+            ReservationStation rs = tag > 0 && tag < stationsByTag.length ? stationsByTag[tag] : null;
+            if (rs == null || !rs.isBusy() || rs.isExecuting() || rs.isResultReady() || !rs.operandsReady()) {
+                throw new IOException("Checkpoint does not match its stations");
+            }
+            scheduler.wake(tag);
+        }
+        for (ReservationStation rs : busy) {
+            FunctionalUnitType type = FunctionalUnitType.of(rs.getOp());
+            if (rs.isExecuting() || rs.isResultReady()) {
+                scheduler.start(rs.getTag(), type);
+                if (rs.isResultReady()) {
+                    scheduler.finish(rs.getTag());
+                }
+            } else if (rs.operandsReady() && !scheduler.isWoken(rs.getTag())) {
+                scheduler.setReady(rs.getTag(), type);
+            }
+        }
+    }
+
+    // Everything that sizes the saved state; a checkpoint only restores into a machine
+    // where all of these match
+    private Map<String, Long> checkpointShape() {
+        Map<String, Long> shape = new LinkedHashMap<>();
+        shape.put("addSubStations", (long) config.getAddSubStations());
+        shape.put("mulDivStations", (long) config.getMulDivStations());
+        shape.put("loadBuffers", (long) config.getLoadBuffers());
+        shape.put("storeBuffers", (long) config.getStoreBuffers());
+        shape.put("registers", (long) config.getRegisterCount());
+        shape.put("issueWidth", (long) config.getIssueWidth());
+        shape.put("rob.size", (long) config.getRobSize());
+        shape.put("fetch.queueSize", (long) config.getFetchQueueSize());
+        shape.put("branch.predictor", (long) config.getPredictorType().ordinal());
+        shape.put("branch.tableBits", (long) config.getPredictorTableBits());
+        shape.put("branch.historyBits", (long) config.getPredictorHistoryBits());
+        shape.put("cache levels", (long) config.getCacheLevels());
+        for (int level = 0; level < config.getCacheLevels(); level++) {
+            CacheConfig cache = config.getCache(level);
+            String prefix = level == 0 ? "cache." : "l" + (level + 1) + ".";
+            shape.put(prefix + "size", (long) cache.getSize());
+            shape.put(prefix + "blockSize", (long) cache.getBlockSize());
+            shape.put(prefix + "associativity", (long) cache.getAssociativity());
+            shape.put(prefix + "policy", (long) cache.getPolicy().ordinal());
+        }
+        for (FunctionalUnitType type : FunctionalUnitType.values()) {
+            shape.put("fu." + type.getKey() + ".count", (long) functionalUnits[type.ordinal()].size());
+            shape.put("fu." + type.getKey() + ".pipelined", config.isUnitPipelined(type) ? 1L : 0L);
+        }
+        shape.put("cache.mshrs", (long) config.getMshrCount());
+        shape.put("memory.size", config.getMemorySize());
+        return shape;
+    }
+
+    // Labels interleaved with the instructions they name, as the program was loaded
+    private void saveProgram(DataOutputStream out) throws IOException {
+        Map<String, Integer> labels = program.getLabels();
+        out.writeInt(labels.size());
+        for (Map.Entry<String, Integer> label : labels.entrySet()) {
+            out.writeUTF(label.getKey());
+            out.writeInt(label.getValue());
+        }
+        out.writeInt(program.size());
+        for (int pc = 0; pc < program.size(); pc++) {
+            InstructionQueue instruction = program.get(pc);
+            out.writeUTF(instruction.toSource());
+            out.writeInt(instruction.loopIterations);
+        }
+    }
+
+    private void restoreProgram(DataInputStream in) throws IOException {
+        Map<Integer, List<String>> labels = new HashMap<>();
+        for (int i = 0, n = in.readInt(); i < n; i++) {
+            String label = in.readUTF();
+            labels.computeIfAbsent(in.readInt(), pc -> new ArrayList<>()).add(label);
+        }
+        int size = in.readInt();
+        for (int pc = 0; pc <= size; pc++) {
+            for (String label : labels.getOrDefault(pc, Collections.emptyList())) {
+                program.addLabel(label);
+            }
+            if (pc < size) {
+                InstructionQueue decoded = InstructionDecoder.decode(in.readUTF());
+                InstructionDecoder.checkRegisters(decoded, registers.length);
+                InstructionDecoder.checkAddress(decoded, config.getMemorySize());
+                program.add(decoded);
+                decoded.loopIterations = in.readInt();
+            }
+        }
+    }
+
+    // Fetched branches are private copies carrying their prediction; everything else is
+    // found again in the program or trace
+    private void saveInFlight(DataOutputStream out, InstructionQueue instruction) throws IOException {
+        out.writeInt(instruction.opcode.ordinal());
+        out.writeInt(instruction.pc);
+        if (instruction.opcode.isBranch()) {
+            out.writeBoolean(instruction.predictedTaken);
+            out.writeInt(instruction.predictorHistory);
+            out.writeInt(instruction.fetchCycle);
+            out.writeLong(instruction.fetchIndex);
+            out.writeBoolean(instruction.mispredicted);
+        }
+    }
+
+    private InstructionQueue restoreInFlight(DataInputStream in, long traceIndex) throws IOException {
+        int opcode = in.readInt();
+        int pc = in.readInt();
+        InstructionQueue instruction;
+        if (source.isTrace()) {
+            instruction = source.fetch(traceIndex);
+        } else {
+            instruction = pc >= 0 && pc < program.size() ? program.get(pc) : null;
+        }
+        if (instruction == null || instruction.opcode.ordinal() != opcode || instruction.pc != pc) {
+            throw new IOException("Checkpoint does not match its program or trace");
+        }
+        if (instruction.opcode.isBranch()) {
+            instruction = instruction.fetchCopy();
+            instruction.predictedTaken = in.readBoolean();
+            instruction.predictorHistory = in.readInt();
+            instruction.fetchCycle = in.readInt();
+            instruction.fetchIndex = in.readLong();
+            instruction.mispredicted = in.readBoolean();
+        }
+        return instruction;
+    }
+
+    // Read-only views for front ends
+    public int getCurrentCycle() { return currentCycle; }
+    public SimulationStats getStats() { return stats; }
+    public boolean isHalted() { return halted; }
+    public String getException() { return exception; }
+    public ReorderBuffer getReorderBuffer() { return rob; }
+    public Program getProgram() { return program; }
+    public long getFetchPc() { return fetchPc; }
+    public long getRetired() { return retired; }
+    public String getUnitName(int tag) { return unitNames[tag]; }
+    public Register[] getRegisters() { return registers; }
+    public RegisterFile getRegisterFile() { return registerFile; }
+    public List<InstructionQueue> getInstructionQueue() { return Collections.unmodifiableList(instructionQueue); }
+    public List<ReservationStation> getAddSubStations() { return Collections.unmodifiableList(addSubRS); }
+    public List<ReservationStation> getMulDivStations() { return Collections.unmodifiableList(mulDivRS); }
+    public List<LoadBuffer> getLoadBuffers() { return Collections.unmodifiableList(loadBuffers); }
+    public List<StoreBuffer> getStoreBuffers() { return Collections.unmodifiableList(storeBuffers); }
+    public Memory getMemory() { return memory; }
+    public Cache getCache() { return caches.getCache(0); }
+    public MemoryHierarchy getMemoryHierarchy() { return caches; }
+}
@@ -0,0 +1,240 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams a dynamic instruction trace from a text or binary file (see BinaryTrace).
+// Records are decoded in chunks as fetch reaches them and dropped once they commit,
+// so only the in-flight window is held however long the trace is. Instructions are
+// told apart by operation and registers only, see InstructionTable; an instruction's pc
+// is its position in that table, which is what the predictor sees.
+public class TraceSource implements InstructionSource {
+    private static final int CHUNK = 4096;
+
+    // Produces the trace one record at a time; null at the end
+    interface RecordReader {
+        InstructionQueue next() throws IOException;
+        void close() throws IOException;
+    }
+
+    private final Path file;
+    private final RecordReader reader;
+    private InstructionQueue[] window = new InstructionQueue[2 * CHUNK];  // Ring indexed by index & mask
+    private long base;  // Oldest index still held
+    private long end;   // One past the newest decoded index
+    private boolean exhausted;
+
+    TraceSource(Path file, RecordReader reader) {
+        this.file = file;
+        this.reader = reader;
+    }
+
+    // Binary traces are recognised by their header; anything else is read as text
+    public static TraceSource open(Path file, int registerCount, long memorySize) throws IOException {
+        if (BinaryTrace.isBinary(file)) {
+            return new TraceSource(file, BinaryTrace.reader(file, registerCount, memorySize));
+        }
+        return new TraceSource(file, new TextReader(file, registerCount, memorySize));
+    }
+
+    @Override
+    public InstructionQueue fetch(long index) {
+        if (index < base) {
+            throw new IllegalStateException("Trace record " + index + " was already released");
+        }
+        while (index >= end && !exhausted) {
+            readChunk();
+        }
+        return index < end ? window[slot(index)] : null;
+    }
+
+    @Override
+    public boolean isTrace() {
+        return true;
+    }
+
+    // Releasing past the records read so far skips the ones in between as they are read
+    @Override
+    public void release(long index) {
+        for (long i = base; i < Math.min(index, end); i++) {
+            window[slot(i)] = null;
+        }
+        base = Math.max(base, index);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        exhausted = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Could not close trace: " + e.getMessage());
+        }
+    }
+
+    private void readChunk() {
+        try {
+            for (int i = 0; i < CHUNK; i++) {
+                InstructionQueue next = reader.next();
+                if (next == null) {
+                    close();
+                    return;
+                }
+                if (end >= base) {
+                    if (end - base == window.length) {
+                        grow();
+                    }
+                    window[slot(end)] = next;
+                }
+                end++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The window only outgrows its array when the machine holds more than that in flight
+    private void grow() {
+        InstructionQueue[] larger = new InstructionQueue[window.length * 2];
+        for (long i = base; i < end; i++) {
+            larger[(int) (i & (larger.length - 1))] = window[slot(i)];
+        }
+        window = larger;
+    }
+
+    private int slot(long index) {
+        return (int) (index & (window.length - 1));
+    }
+
+    // The instruction part of a trace or program line: any "LABEL:" prefix is dropped
+    static String instructionText(String line) {
+        int colon = line.indexOf(':');
+        return (colon >= 0 ? line.substring(colon + 1) : line).trim();
+    }
+
+    // Whether the instruction's last operand is a value that may differ between records
+    static boolean hasImmediate(Opcode opcode) {
+        return opcode == Opcode.L_D || opcode == Opcode.S_D || opcode == Opcode.DADDI || opcode == Opcode.DSUBI;
+    }
+
+    // One record of a table entry with an immediate, carrying the record's own value
+    static InstructionQueue withImmediate(InstructionQueue entry, int immediate, long memorySize) {
+        InstructionQueue record = entry.fetchCopy();
+        record.immediate = immediate;
+        InstructionDecoder.checkAddress(record, memorySize);
+        return record;
+    }
+
+    // The distinct instructions of a trace. Loads, stores and immediate operations get
+    // one entry per operation and registers, however many addresses or immediates they
+    // are seen with, so the table grows with the static code rather than the trace.
+    // Records of other instructions share their entry; the rest are copies of it.
+    static class InstructionTable {
+        private final int registerCount;
+        private final long memorySize;
+        private final Map<String, InstructionQueue> byText = new HashMap<>();  // Entries without an immediate
+        private final Map<String, InstructionQueue> byStem = new HashMap<>();  // Text before the immediate
+        private final List<String> texts = new ArrayList<>();                  // First text of each entry
+
+        InstructionTable(int registerCount, long memorySize) {
+            this.registerCount = registerCount;
+            this.memorySize = memorySize;
+        }
+
+        // The record for one line of instruction text, adding an entry if it is new
+        InstructionQueue decode(String text) {
+            InstructionQueue entry = byText.get(text);
+            if (entry != null) {
+                return entry;
+            }
+            int last = lastOperand(text);
+            entry = byStem.get(text.substring(0, last));
+            if (entry != null) {
+                try {
+                    return withImmediate(entry, Integer.parseInt(text.substring(last)), memorySize);
+                } catch (NumberFormatException e) {
+                    // Not an immediate after all; the full decode below reports it
+                }
+            }
+            entry = add(text);
+            if (hasImmediate(entry.opcode)) {
+                byStem.put(text.substring(0, last), entry);
+            } else {
+                byText.put(text, entry);
+            }
+            return entry;
+        }
+
+        // Decodes an entry at the next pc, also used to rebuild a binary trace's table
+        InstructionQueue add(String text) {
+            InstructionQueue decoded = InstructionDecoder.decode(text);
+            InstructionDecoder.checkRegisters(decoded, registerCount);
+            InstructionDecoder.checkAddress(decoded, memorySize);
+            decoded.pc = texts.size();
+            decoded.target = decoded.pc + 1;  // Trace order already follows the branches
+            texts.add(text);
+            return decoded;
+        }
+
+        List<String> getTexts() {
+            return texts;
+        }
+
+        // Start of the last operand, which follows the last comma or space
+        private static int lastOperand(String text) {
+            int i = text.length();
+            while (i > 0 && text.charAt(i - 1) != ',' && !Character.isWhitespace(text.charAt(i - 1))) {
+                i--;
+            }
+            return i;
+        }
+    }
+
+    // One instruction per line, as in a program; bad lines are reported and skipped
+    private static class TextReader implements RecordReader {
+        private final Path file;
+        private final BufferedReader in;
+        private final InstructionTable table;
+        private long lineNumber;
+
+        TextReader(Path file, int registerCount, long memorySize) throws IOException {
+            this.file = file;
+            this.in = Files.newBufferedReader(file);
+            this.table = new InstructionTable(registerCount, memorySize);
+        }
+
+        @Override
+        public InstructionQueue next() throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String text = instructionText(line);
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    return table.decode(text);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(file + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package src;
+
+// What a station or buffer spent a cycle doing
+public enum UnitState {
+    IDLE("idle"),
+    RAW_WAIT("waiting for operands"),    // A source (or a forwarding store's value) is not ready
+    UNIT_WAIT("waiting for a functional unit"),  // Ready, but every unit of its class is busy
+    EXECUTING("executing"),
+    MEMORY_WAIT("waiting for memory"),   // A load that missed in L1 or found every MSHR busy
+    CDB_WAIT("waiting for a CDB"),       // Finished, lost CDB arbitration
+    COMMIT_WAIT("waiting to commit");    // A store with its value, held until it commits
+
+    private final String name;
+
+    UnitState(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
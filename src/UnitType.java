@@ -0,0 +1,36 @@
+package src;
+
+// Kinds of station and buffer an instruction can issue to, for stall accounting
+public enum UnitType {
+    ADD_SUB("Add/Sub stations"),   // Also integer and branch operations
+    MUL_DIV("Mul/Div stations"),
+    LOAD("Load buffers"),
+    STORE("Store buffers");
+
+    private final String name;
+
+    UnitType(String name) {
+        this.name = name;
+    }
+
+    public static UnitType of(Opcode op) {
+        switch (op) {
+            case L_D:
+                return LOAD;
+            case S_D:
+                return STORE;
+            case MUL_D:
+            case DIV_D:
+            case MUL_S:
+            case DIV_S:
+                return MUL_DIV;
+            default:
+                return ADD_SUB;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
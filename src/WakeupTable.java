@@ -0,0 +1,83 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// For every producer tag, the consumers that captured that tag at issue time. A CDB
+// broadcast walks only this list instead of every station and buffer in the machine.
+// Consumers are packed as (tag << 2) | slot, where tag identifies the waiting unit.
+public class WakeupTable {
+    public static final int SLOT_J = 0;      // Reservation station Vj/Qj
+    public static final int SLOT_K = 1;      // Reservation station Vk/Qk
+    public static final int SLOT_STORE = 2;  // Store buffer value/Q
+
+    private final int[][] consumers;
+    private final int[] counts;
+
+    public WakeupTable(int tagCount) {
+        consumers = new int[tagCount][];
+        counts = new int[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            consumers[i] = new int[4];
+        }
+    }
+
+    public void addConsumer(int producer, int consumerTag, int slot) {
+        int n = counts[producer];
+        if (n == consumers[producer].length) {
+            consumers[producer] = Arrays.copyOf(consumers[producer], n * 2);
+        }
+        consumers[producer][n] = (consumerTag << 2) | slot;
+        counts[producer] = n + 1;
+    }
+
+    public int getConsumerCount(int producer) {
+        return counts[producer];
+    }
+
+    public int getConsumer(int producer, int index) {
+        return consumers[producer][index];
+    }
+
+    public static int consumerTag(int consumer) {
+        return consumer >>> 2;
+    }
+
+    public static int consumerSlot(int consumer) {
+        return consumer & 3;
+    }
+
+    public void save(DataOutput out) throws IOException {
+        for (int producer = 0; producer < counts.length; producer++) {
+            out.writeInt(counts[producer]);
+            for (int i = 0; i < counts[producer]; i++) {
+                out.writeInt(consumers[producer][i]);
+            }
+        }
+    }
+
+    public void restore(DataInput in) throws IOException {
+        clearAll();
+        for (int producer = 0; producer < counts.length; producer++) {
+            int n = in.readInt();
+            if (n > consumers[producer].length) {
+                consumers[producer] = new int[n];
+            }
+            for (int i = 0; i < n; i++) {
+                consumers[producer][i] = in.readInt();
+            }
+            counts[producer] = n;
+        }
+    }
+
+    // Forget everything recorded for a producer once it has broadcast
+    public void clear(int producer) {
+        counts[producer] = 0;
+    }
+
+    public void clearAll() {
+        Arrays.fill(counts, 0);
+    }
+}